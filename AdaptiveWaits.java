@@ -0,0 +1,166 @@
+/**
+ * The AdaptiveWaits class sets the poll intervals and timeouts of the mining logic's waits from the latencies it has
+ * observed, instead of fixed values. Every wait belongs to a {@link MiningPhase}; the time each successful wait took
+ * is recorded in a {@link LatencyHistogram} for its phase. Once a phase has enough samples:
+ *
+ * - its timeout becomes the 99th percentile latency plus a margin, so a wait that is not going to succeed is given up
+ *   on early, and
+ * - its poll interval becomes a fraction of the fastest latencies, so a success is noticed soon after it happens.
+ *
+ * Until then, and never beyond them, the fixed bounds the caller passes are used. Both values are randomized so the
+ * waits do not look machine-timed. A wait that times out is followed by one wait with the caller's full timeout, so
+ * the engine can still learn if the latencies grow (timed out waits are never recorded).
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+public class AdaptiveWaits {
+
+    private static final int MIN_SAMPLES = 20;         // latencies to observe before adapting
+    private static final double TIMEOUT_FACTOR = 1.5;  // of the 99th percentile
+    private static final long TIMEOUT_MARGIN = 1200;   // milliseconds the timeout is at least above the 99th percentile
+    private static final long MIN_TIMEOUT = 1000;      // milliseconds
+    private static final int MIN_POLL = 60;            // milliseconds; polling faster than this does not look human
+    private static final int POLL_DIVISOR = 4;         // the poll interval is the 10th percentile over this
+
+    private final GameClock clock;
+    private final LatencyHistogram[] latencies = new LatencyHistogram[MiningPhase.values().length];
+    private final boolean[] timedOut = new boolean[MiningPhase.values().length];
+
+    public AdaptiveWaits(GameClock clock) {
+        this.clock = clock;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Waits for a condition, sleeping an adaptive poll interval before every check.
+     *
+     * @param timeoutMin, timeoutMax: the timeout to use until the phase's latencies are known, and its upper bound
+     * @param pollMin, pollMax: the poll interval to use until the phase's latencies are known, and its upper bound
+     *
+     * @return True if the condition became true within the timeout, false otherwise.
+     */
+    public boolean waitCondition(MiningPhase phase, BooleanSupplier condition, int timeoutMin, int timeoutMax,
+                                 int pollMin, int pollMax) {
+        return waitCondition(phase, condition, null, timeoutMin, timeoutMax, pollMin, pollMax);
+    }
+
+    /**
+     * Waits for a condition, sleeping an adaptive poll interval before every check, and gives up as soon as abort is
+     * true (see {@link #waitCondition(MiningPhase, BooleanSupplier, BooleanSupplier, int, int)}).
+     *
+     * @return True if the condition became true within the timeout, false if it did not or the wait was given up.
+     */
+    public boolean waitCondition(MiningPhase phase, final BooleanSupplier condition, BooleanSupplier abort,
+                                 int timeoutMin, int timeoutMax, int pollMin, int pollMax) {
+        final int poll = getPollInterval(phase, pollMin, pollMax);
+        BooleanSupplier polledCondition = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                // randomized below the interval, so a poll never sleeps longer than pollMax
+                clock.sleep(poll - poll / 5, poll);
+                return condition.getAsBoolean();
+            }
+        };
+        return waitCondition(phase, polledCondition, abort, timeoutMin, timeoutMax);
+    }
+
+    /**
+     * Waits for a condition that paces itself (e.g. by awaiting a future), with an adaptive timeout.
+     *
+     * @return True if the condition became true within the timeout, false otherwise.
+     */
+    public boolean waitCondition(MiningPhase phase, BooleanSupplier condition, int timeoutMin, int timeoutMax) {
+        return waitCondition(phase, condition, null, timeoutMin, timeoutMax);
+    }
+
+    /**
+     * Waits for a condition that paces itself, with an adaptive timeout, and gives up as soon as abort is true (e.g.
+     * the rock waited for lost its ore). A wait given up is neither recorded as a latency nor counted as a timeout:
+     * it says nothing about how long the phase takes.
+     *
+     * @param abort: checked before the condition on every poll, or null to never give up
+     *
+     * @return True if the condition became true within the timeout, false if it did not or the wait was given up.
+     */
+    public boolean waitCondition(MiningPhase phase, final BooleanSupplier condition, final BooleanSupplier abort,
+                                 int timeoutMin, int timeoutMax) {
+        final AtomicBoolean aborted = new AtomicBoolean(false);
+        BooleanSupplier abortableCondition = abort == null ? condition : new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                aborted.set(abort.getAsBoolean());
+                return aborted.get() || condition.getAsBoolean();
+            }
+        };
+
+        long start = clock.currentTimeMillis();
+        if (clock.waitCondition(abortableCondition, getTimeout(phase, timeoutMin, timeoutMax))) {
+            if (aborted.get()) return false;
+            record(phase, clock.currentTimeMillis() - start);
+            return true;
+        }
+        timedOut[phase.ordinal()] = true;
+        return false;
+    }
+
+    /**
+     * Waits for a future to complete, with an adaptive timeout.
+     *
+     * @return True if the future completed within the timeout, false otherwise.
+     */
+    public boolean await(MiningPhase phase, Future<?> future, int timeoutMin, int timeoutMax) {
+        long start = clock.currentTimeMillis();
+        if (clock.await(future, getTimeout(phase, timeoutMin, timeoutMax))) {
+            record(phase, clock.currentTimeMillis() - start);
+            return true;
+        }
+        timedOut[phase.ordinal()] = true;
+        return false;
+    }
+
+    /**
+     * Records how long a successful wait of a phase took.
+     */
+    public void record(MiningPhase phase, long latency) {
+        latencies[phase.ordinal()].record(latency);
+        timedOut[phase.ordinal()] = false;
+    }
+
+    /**
+     * @return A randomized timeout for the phase, between MIN_TIMEOUT and max.
+     */
+    public long getTimeout(MiningPhase phase, int min, int max) {
+        LatencyHistogram histogram = latencies[phase.ordinal()];
+        if (histogram.getCount() < MIN_SAMPLES || timedOut[phase.ordinal()]) return clock.random(min, max);
+
+        long p99 = histogram.getPercentile(99);
+        long timeout = Math.max((long) (p99 * TIMEOUT_FACTOR), p99 + TIMEOUT_MARGIN);
+        timeout = Math.max(MIN_TIMEOUT, Math.min(timeout, max));
+        return clock.random((int) timeout, (int) Math.min(max, timeout + timeout / 10));
+    }
+
+    /**
+     * @return The poll interval for the phase, between MIN_POLL and max; the caller randomizes it per poll.
+     */
+    public int getPollInterval(MiningPhase phase, int min, int max) {
+        LatencyHistogram histogram = latencies[phase.ordinal()];
+        if (histogram.getCount() < MIN_SAMPLES) return clock.random(min, max);
+
+        long poll = histogram.getPercentile(10) / POLL_DIVISOR;
+        return (int) Math.max(MIN_POLL, Math.min(poll, max));
+    }
+
+    public LatencyHistogram getLatencies(MiningPhase phase) {
+        return latencies[phase.ordinal()];
+    }
+
+}
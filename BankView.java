@@ -0,0 +1,26 @@
+/**
+ * The BankView interface provides the bank operations used by the mining logic.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public interface BankView {
+
+    boolean isInBank();
+
+    boolean isBankScreenOpen();
+
+    boolean openBank();
+
+    /**
+     * Deposits every inventory item.
+     *
+     * @return The number of items deposited.
+     */
+    int depositAll();
+
+    boolean close();
+
+}
@@ -0,0 +1,44 @@
+/**
+ * This class contains the banking flow used by the mining loop. It does what {@link scripts.CustomBanking#bank()} does,
+ * but through the current {@link GameContext} so it also works against a simulated bank.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.concurrent.CompletableFuture;
+
+public class BankingHelper {
+
+    /**
+     * Banks all inventory items.
+     *
+     * @return True if inventory is successfully banked, false otherwise.
+     */
+    public static boolean bank() {
+        GameContext context = GameContext.current();
+        BankView bank = context.bank();
+
+        if (!bank.isBankScreenOpen()) {
+            if (!bank.openBank()) return false;
+        }
+
+        // inventory is full at this point; the deposit is over the moment the inventory changes
+        CompletableFuture<Integer> inventoryChange = context.inventory().watchItemCount();
+        if (bank.depositAll() == 0) {
+            inventoryChange.cancel(false);
+            return false;
+        }
+
+        if (context.waits().await(MiningPhase.BANK, inventoryChange, 2000, 3000)) {
+            bank.close();
+        } else {
+            inventoryChange.cancel(false);
+            return false;
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * This class keeps track of the rocks other players are mining. Every time the other players around are observed, the
+ * rock tile each animating player faces gets a point added to its "contested" score. A score is cleared as soon as its
+ * rock is seen depleted, and otherwise decays with a half-life of CONTESTED_HALF_LIFE, so a rock other players have
+ * stopped mining is soon no longer avoided.
+ *
+ * Rocks with a high score are likely to be depleted by someone else before the player gets their ore, so
+ * {@link RockTargets} deprioritizes them.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public class ContentionTracker {
+
+    private static final double CONTESTED_HALF_LIFE = 10000; // milliseconds
+    private static final double MAX_SCORE = 3;               // a rock mined for a long time is not worse than this
+
+    private static class TileRecord {
+        private double score = 0;    // the score as of updatedAt
+        private long updatedAt = 0;
+    }
+
+    private final GameClock clock;
+    private final TileMap<TileRecord> tiles = new TileMap<>();
+
+    public ContentionTracker(GameClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Records an observation of the other players around. A tile gets at most one point per game tick, however often
+     * the players are observed.
+     */
+    public synchronized void observe(ObservedPlayer[] players, long time) {
+        for (ObservedPlayer player : players) {
+            if (!player.isAnimating()) continue;
+
+            int facedTile = player.getFacedTile();
+            TileRecord record = tiles.get(facedTile);
+            if (record == null) {
+                record = new TileRecord();
+                tiles.put(facedTile, record);
+            } else if (time - record.updatedAt < WorldSnapshot.TICK_LENGTH) {
+                continue;
+            }
+
+            record.score = Math.min(MAX_SCORE, decay(record, time) + 1);
+            record.updatedAt = time;
+        }
+    }
+
+    /**
+     * Records an observation of a rock. A depleted rock is no longer contested: whoever was mining it has moved on.
+     */
+    public synchronized void observe(ObservedRock rock) {
+        if (rock.getType() != null) return;
+
+        TileRecord record = tiles.get(rock.getPackedTile());
+        if (record != null) record.score = 0;
+    }
+
+    /**
+     * Forgets every score, e.g. after hopping to another world, where other players are mining.
+     */
+    public synchronized void clear() {
+        tiles.clear();
+    }
+
+    /**
+     * @return How contested a rock tile currently is: 0 if no other player has been seen mining it lately, up to
+     * MAX_SCORE.
+     */
+    public synchronized double getScore(int packedTile) {
+        TileRecord record = tiles.get(packedTile);
+        return record == null ? 0 : decay(record, clock.currentTimeMillis());
+    }
+
+    private static double decay(TileRecord record, long time) {
+        if (record.score == 0) return 0;
+        return record.score * Math.pow(0.5, (time - record.updatedAt) / CONTESTED_HALF_LIFE);
+    }
+
+}
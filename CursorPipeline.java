@@ -0,0 +1,101 @@
+/**
+ * The CursorPipeline class gets the click on the next rock ready while the current one is being mined, so it can be
+ * made as soon as the current rock is depleted. While the depletion is waited for, the rock to mine next is chosen and
+ * the cursor is moved onto it; on every poll of the wait the cursor is checked to still be on that rock (the camera
+ * or the rock's model may have moved since, or an ore may have been dropped) and put back on it if not. Putting it
+ * back is only a mouse move: the rock has been chosen already, so there is no pause before it. Once the rock is
+ * selected, it is clicked where the cursor already is, without computing a click point, moving the mouse or waiting
+ * for the rock to be on screen.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+public class CursorPipeline {
+
+    private final Mouse mouse;
+    private ObservedRock target = null; // the rock the cursor was last moved onto, or null
+
+    public CursorPipeline(Mouse mouse) {
+        this.mouse = mouse;
+    }
+
+    /**
+     * Moves the cursor onto a rock to click it later.
+     *
+     * @return True if the cursor is on the rock, false otherwise.
+     */
+    public boolean prepare(ObservedRock rock) {
+        // remembered even if the move fails, so the next poll moves the cursor again without a pause
+        target = rock;
+        return mouse.hover(rock);
+    }
+
+    /**
+     * Puts the cursor back on the rock it was moved onto if it has left it, e.g. because the camera moved.
+     *
+     * @param rock: the latest observation of the rock
+     *
+     * @return True if the cursor is on the rock, false otherwise.
+     */
+    public boolean revalidate(ObservedRock rock) {
+        target = rock;
+        if (mouse.isOn(rock)) return true;
+
+        MiningLog.debug("Cursor Left Rock: Moving It Back");
+        return mouse.hover(rock);
+    }
+
+    /**
+     * Puts the cursor back on the rock it was last moved onto, e.g. after an ore was dropped, if it has left it.
+     *
+     * @return True if the cursor is on a rock, false otherwise.
+     */
+    public boolean restore() {
+        return target != null && revalidate(target);
+    }
+
+    /**
+     * @return True if the cursor was last moved onto the rock's tile.
+     */
+    public boolean isPreparedFor(ObservedRock rock) {
+        return target != null && target.getPackedTile() == rock.getPackedTile();
+    }
+
+    /**
+     * @return True if the cursor was moved onto the rock and is still on it, so it can be clicked right away.
+     */
+    public boolean isReady(ObservedRock rock) {
+        return isPreparedFor(rock) && mouse.isOn(rock);
+    }
+
+    /**
+     * Clicks an option on a rock: where the cursor is if it is ready on the rock, from scratch otherwise.
+     *
+     * @return True if the option was clicked, false otherwise.
+     */
+    public boolean fire(ObservedRock rock, String option) {
+        boolean clicked = isReady(rock) ? mouse.clickInPlace(rock, option) : mouse.click(rock, option);
+        target = rock;
+        return clicked;
+    }
+
+    /**
+     * @return The tile of the rock the cursor was last moved onto, or null if it was not moved onto one since the
+     * last clear.
+     */
+    public RSTile getTile() {
+        return target == null ? null : target.getPosition();
+    }
+
+    /**
+     * Forgets the rock, e.g. after a world hop, so the next hover chooses a rock again.
+     */
+    public void clear() {
+        target = null;
+    }
+
+}
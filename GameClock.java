@@ -0,0 +1,48 @@
+/**
+ * The GameClock interface provides time, sleeping and waiting to the mining logic. The TRiBot implementation uses wall
+ * clock time; the simulator uses a virtual clock that only advances when the mining logic sleeps or waits.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+public interface GameClock {
+
+    long currentTimeMillis();
+
+    void sleep(long milliseconds);
+
+    void sleep(int min, int max);
+
+    /**
+     * @return A random number between min and max (inclusive).
+     */
+    int random(int min, int max);
+
+    /**
+     * Repeatedly checks a condition until it is true or the timeout passes.
+     *
+     * @return True if the condition became true within the timeout, false otherwise.
+     */
+    boolean waitCondition(BooleanSupplier condition, long timeout);
+
+    /**
+     * Waits for a future to complete, returning the moment it does.
+     *
+     * @return True if the future completed within the timeout, false otherwise.
+     */
+    boolean await(Future<?> future, long timeout);
+
+    /**
+     * Lets time pass between two steps of a session without blocking the calling thread, so the wait can be left to a
+     * scheduler instead.
+     *
+     * @return The number of milliseconds the caller still has to wait; 0 if the clock already advanced by itself.
+     */
+    long passTime(long milliseconds);
+
+}
@@ -0,0 +1,151 @@
+/**
+ * The GameContext class bundles the game API used by the mining logic (world, inventory, bank, mouse, walker and
+ * clock) together with the caches and metrics built on top of it. The mining logic never calls TRiBot directly; it
+ * asks for the current context instead, which is the TRiBot-backed one unless another context (e.g. a
+ * {@link SimulatedGame}) has been bound to the calling thread.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public class GameContext {
+
+    private static final ThreadLocal<GameContext> boundContext = new ThreadLocal<>();
+    private static GameContext tribotContext = null;
+
+    private final WorldView world;
+    private final InventoryView inventory;
+    private final BankView bank;
+    private final Mouse mouse;
+    private final Walker walker;
+    private final GameClock clock;
+
+    private final RespawnTracker respawns;
+    private final ContentionTracker contention;
+    private final RockBoard board;
+    private final TickScheduler ticks;
+    private final SessionRecorder recorder;
+    private final WorldSnapshot snapshot;
+    private final MiningMetrics metrics;
+    private final AdaptiveWaits waits;
+
+    public GameContext(WorldView world, InventoryView inventory, BankView bank, Mouse mouse, Walker walker,
+                       GameClock clock) {
+        this.world = world;
+        this.inventory = inventory;
+        this.bank = bank;
+        this.mouse = mouse;
+        this.walker = walker;
+        this.clock = clock;
+
+        this.respawns = new RespawnTracker();
+        this.contention = new ContentionTracker(clock);
+        this.board = new RockBoard(clock);
+        this.ticks = new TickScheduler(clock);
+        this.recorder = new SessionRecorder();
+        this.snapshot = new WorldSnapshot(world, clock, ticks, respawns, contention, board, recorder);
+        this.metrics = new MiningMetrics(clock, recorder);
+        this.waits = new AdaptiveWaits(clock);
+    }
+
+    /**
+     * Creates a context backed entirely by a simulated game.
+     */
+    public GameContext(SimulatedGame game) {
+        this(game, game, game, game, game, game);
+    }
+
+    /**
+     * @return The context bound to the calling thread, or the TRiBot-backed context if none is bound.
+     */
+    public static GameContext current() {
+        GameContext context = boundContext.get();
+        return context != null ? context : tribot();
+    }
+
+    /**
+     * @return The TRiBot-backed context, shared by every thread without a bound context.
+     */
+    public static synchronized GameContext tribot() {
+        if (tribotContext == null) {
+            tribotContext = new GameContext(new TribotWorldView(), new TribotInventoryView(), new TribotBankView(),
+                    new TribotMouse(), new TribotWalker(), new TribotClock());
+        }
+        return tribotContext;
+    }
+
+    /**
+     * Makes a context the current context of the calling thread.
+     */
+    public static void bind(GameContext context) {
+        boundContext.set(context);
+    }
+
+    public static void unbind() {
+        boundContext.remove();
+    }
+
+    public WorldView world() {
+        return world;
+    }
+
+    public InventoryView inventory() {
+        return inventory;
+    }
+
+    public BankView bank() {
+        return bank;
+    }
+
+    public Mouse mouse() {
+        return mouse;
+    }
+
+    public Walker walker() {
+        return walker;
+    }
+
+    public GameClock clock() {
+        return clock;
+    }
+
+    public RespawnTracker respawns() {
+        return respawns;
+    }
+
+    public ContentionTracker contention() {
+        return contention;
+    }
+
+    /**
+     * @return The board the rocks claimed by sibling bots are shared on; it ignores every call until it joins a file.
+     */
+    public RockBoard board() {
+        return board;
+    }
+
+    public TickScheduler ticks() {
+        return ticks;
+    }
+
+    /**
+     * @return The recorder of what the session sees and does; it ignores every record until it is started.
+     */
+    public SessionRecorder recorder() {
+        return recorder;
+    }
+
+    public WorldSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public MiningMetrics metrics() {
+        return metrics;
+    }
+
+    public AdaptiveWaits waits() {
+        return waits;
+    }
+
+}
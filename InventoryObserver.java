@@ -0,0 +1,95 @@
+/**
+ * This class watches the number of occupied inventory slots and signals the moment it changes, so callers can react
+ * to items being deposited or received without sleep-polling the game client themselves.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.Inventory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class InventoryObserver {
+
+    // how often the inventory is checked while something is watching it
+    private static final long POLL_INTERVAL = 50;
+
+    private static class Watch {
+        private final int itemCount;
+        private final CompletableFuture<Integer> change = new CompletableFuture<>();
+
+        private Watch(int itemCount) {
+            this.itemCount = itemCount;
+        }
+    }
+
+    private static final List<Watch> watches = new CopyOnWriteArrayList<>();
+
+    private static ScheduledExecutorService poller = null;
+
+    /**
+     * Starts watching the inventory. The returned future is completed with the new number of occupied slots as soon
+     * as it differs from the current one; cancelling the future stops the watch.
+     *
+     * @return A future completed on the first change of the inventory.
+     */
+    public static CompletableFuture<Integer> watch() {
+        startPoller();
+
+        Watch watch = new Watch(Inventory.getAll().length);
+        watches.add(watch);
+        return watch.change;
+    }
+
+    private static synchronized void startPoller() {
+        if (poller != null) return;
+
+        poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Inventory Observer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        poller.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                pollInventory();
+            }
+        }, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Checks the inventory once and signals the watches it has changed for.
+     */
+    private static void pollInventory() {
+        if (watches.isEmpty()) return;
+
+        int itemCount;
+        try {
+            itemCount = Inventory.getAll().length;
+        } catch (RuntimeException e) {
+            // the client can fail mid-update -> try again next poll
+            return;
+        }
+
+        for (Watch watch : watches) {
+            if (watch.change.isDone()) {
+                watches.remove(watch);
+            } else if (watch.itemCount != itemCount) {
+                watches.remove(watch);
+                watch.change.complete(itemCount);
+            }
+        }
+    }
+
+}
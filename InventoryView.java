@@ -0,0 +1,46 @@
+/**
+ * The InventoryView interface provides the inventory operations used by the mining logic.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface InventoryView {
+
+    boolean isFull();
+
+    /**
+     * @return The number of occupied inventory slots.
+     */
+    int getItemCount();
+
+    /**
+     * @return The number of items with any of the given names.
+     */
+    int getCount(String... names);
+
+    /**
+     * Drops every item with any of the given names.
+     *
+     * @return The number of items dropped.
+     */
+    int drop(String... names);
+
+    /**
+     * Drops the first item, by inventory slot, with any of the given names.
+     *
+     * @return True if an item was dropped, false if there is none or the drop failed.
+     */
+    boolean dropOne(String... names);
+
+    /**
+     * Starts watching the number of occupied slots. Cancelling the returned future stops the watch.
+     *
+     * @return A future completed with the new number of occupied slots as soon as it changes.
+     */
+    CompletableFuture<Integer> watchItemCount();
+
+}
@@ -0,0 +1,97 @@
+/**
+ * The LatencyHistogram class records durations into log-linear buckets, in the style of an HDR histogram: every power
+ * of two is split into 16 linear buckets, so any recorded value is known to within about 6% while the histogram stays
+ * a fixed array of 960 counters covering every positive long. Recording is lock-free and allocation-free, so it can be
+ * done from any thread on the hot path.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 32;   // values below this have a bucket each
+    private static final int SUB_BUCKETS = 16;      // buckets per power of two above LINEAR_BUCKETS
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + 58 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+
+        long currentMax;
+        do {
+            currentMax = max.get();
+        } while (value > currentMax && !max.compareAndSet(currentMax, value));
+    }
+
+    private static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) return (int) value;
+
+        // keep the 5 most significant bits: the leading 1 picks the power of two, the other 4 the sub-bucket
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 4;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * @return The highest value that falls into a bucket.
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) return bucket;
+
+        int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * @param percentile: between 0 and 100
+     *
+     * @return The value below which the given percentage of the recorded values fall, rounded up to the end of its
+     * bucket, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= target) return Math.min(highestValueOf(bucket), max.get());
+        }
+        return max.get();
+    }
+
+}
@@ -0,0 +1,16 @@
+/**
+ * The levels of {@link MiningLog} entries, from the most to the least verbose.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public enum LogLevel {
+
+    DEBUG,  // per-poll details, e.g. which rock is hovered
+    INFO,   // progress of the mining loop, e.g. state changes
+    WARN,   // something went wrong but the loop recovers by itself
+    ERROR   // a session cannot continue
+
+}
@@ -0,0 +1,200 @@
+/**
+ * The MetricsExporter class writes the {@link MiningMetrics} of one or more sessions in the Prometheus text format,
+ * either to a file that is rewritten periodically or from an HTTP endpoint served by the JDK's built-in server. Both
+ * run on their own daemon threads; the mining sessions only ever update their metrics.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsExporter {
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final Map<String, MiningMetrics> sessions = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService fileWriter = null;
+    private HttpServer server = null;
+
+    /**
+     * Adds a session's metrics to the export, under the given session name.
+     */
+    public void register(String session, MiningMetrics metrics) {
+        sessions.put(session, metrics);
+    }
+
+    public void unregister(String session) {
+        sessions.remove(session);
+    }
+
+    /**
+     * Writes the metrics of every registered session.
+     */
+    public void writeTo(Writer writer) throws IOException {
+        StringBuilder text = new StringBuilder();
+
+        text.append("# TYPE mining_phase_duration_ms summary\n");
+        for (Map.Entry<String, MiningMetrics> session : sessions.entrySet()) {
+            for (MiningPhase phase : MiningPhase.values()) {
+                LatencyHistogram histogram = session.getValue().getDurations(phase);
+                String labels = "session=\"" + session.getKey() + "\",phase=\"" + phase + "\"";
+                for (double percentile : PERCENTILES) {
+                    appendSample(text, "mining_phase_duration_ms", labels + ",quantile=\"" + percentile / 100 + "\"",
+                            histogram.getPercentile(percentile));
+                }
+                appendSample(text, "mining_phase_duration_ms_sum", labels, histogram.getSum());
+                appendSample(text, "mining_phase_duration_ms_count", labels, histogram.getCount());
+            }
+        }
+
+        text.append("# TYPE mining_phase_failures_total counter\n");
+        for (Map.Entry<String, MiningMetrics> session : sessions.entrySet()) {
+            for (MiningPhase phase : MiningPhase.values()) {
+                appendSample(text, "mining_phase_failures_total",
+                        "session=\"" + session.getKey() + "\",phase=\"" + phase + "\"",
+                        session.getValue().getFailures(phase));
+            }
+        }
+
+        text.append("# TYPE mining_ores_total counter\n");
+        for (Map.Entry<String, MiningMetrics> session : sessions.entrySet()) {
+            appendSample(text, "mining_ores_total", "session=\"" + session.getKey() + "\"",
+                    session.getValue().getOres());
+        }
+        text.append("# TYPE mining_ores_per_hour gauge\n");
+        for (Map.Entry<String, MiningMetrics> session : sessions.entrySet()) {
+            appendSample(text, "mining_ores_per_hour", "session=\"" + session.getKey() + "\"",
+                    session.getValue().getOresPerHour());
+        }
+        text.append("# TYPE mining_failed_mine_attempts_total counter\n");
+        for (Map.Entry<String, MiningMetrics> session : sessions.entrySet()) {
+            appendSample(text, "mining_failed_mine_attempts_total", "session=\"" + session.getKey() + "\"",
+                    session.getValue().getFailedMineAttempts());
+        }
+        text.append("# TYPE mining_failed_click_ratio gauge\n");
+        for (Map.Entry<String, MiningMetrics> session : sessions.entrySet()) {
+            appendSample(text, "mining_failed_click_ratio", "session=\"" + session.getKey() + "\"",
+                    session.getValue().getFailedClickRate());
+        }
+
+        writer.write(text.toString());
+        writer.flush();
+    }
+
+    private static void appendSample(StringBuilder text, String name, String labels, double value) {
+        text.append(name).append('{').append(labels).append("} ");
+        if (value == Math.rint(value)) {
+            text.append((long) value);
+        } else {
+            text.append(String.format(Locale.ROOT, "%.3f", value));
+        }
+        text.append('\n');
+    }
+
+    /**
+     * Rewrites a file with the current metrics at a fixed interval. The file is replaced as a whole, so readers never
+     * see a partly written file.
+     */
+    public synchronized void startFileExport(final File file, long interval) {
+        if (fileWriter != null) fileWriter.shutdownNow();
+
+        fileWriter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "mining-metrics-file");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        fileWriter.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    writeFile(file);
+                } catch (IOException e) {
+                    MiningLog.log(LogLevel.WARN, "Unable to write metrics", file, e);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void writeFile(File file) throws IOException {
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporaryFile), StandardCharsets.UTF_8)) {
+            writeTo(writer);
+        }
+        if (!temporaryFile.renameTo(file)) {
+            // renaming over an existing file fails on some platforms
+            if (!file.delete() || !temporaryFile.renameTo(file)) throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    /**
+     * Serves the current metrics at http://localhost:port/metrics. Only the loopback address is bound.
+     */
+    public synchronized void startHttpServer(int port) throws IOException {
+        if (server != null) server.stop(0);
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                StringWriter text = new StringWriter();
+                writeTo(text);
+                byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.setExecutor(Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "mining-metrics-http");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+        server.start();
+    }
+
+    /**
+     * Stops the file export and the HTTP endpoint, if they were started.
+     */
+    public synchronized void stop() {
+        if (fileWriter != null) {
+            fileWriter.shutdownNow();
+            fileWriter = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * The MineDiscovery class finds a mine's rocks so the mine does not have to be configured by hand. It scans the rocks
+ * around the player a few ticks apart (a depleted rock cannot be classified, so a rock is kept once it has been seen
+ * with ore), classifies every rock by its colours, and picks the best cluster: the standing tile with the most target
+ * rocks next to its sides, so all of them can be mined from it without walking (see {@link MineIndex#isNextTo}). The
+ * cluster becomes a {@link MineProfile}, with the standing tile as the entrance.
+ * A rock that was depleted in every scan has no known type; if one is in the cluster, the scan is incomplete and its
+ * profile should not be kept for later runs.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class MineDiscovery {
+
+    private static final int SCAN_DISTANCE = 15;   // the distance to search rocks within, about the screen
+    private static final int SCANS = 5;            // one per tick, so rocks depleted during the first are seen too
+    private static final int[][] SIDES = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    private final RockTarget[] targets;
+    private final Map<Integer, Rock> rocks = new LinkedHashMap<>(); // the target rocks seen so far, by packed tile
+    private final Set<Integer> unclassifiedTiles = new HashSet<>(); // the rocks only seen depleted so far
+    private int standingTile = -1;  // the packed standing tile of the last profile created, or -1
+
+    public MineDiscovery(RockTarget[] targets) {
+        this.targets = targets;
+    }
+
+    /**
+     * Scans the mine around the player a few ticks apart. If the first scan finds no target rock, the player is not at
+     * a mine of the targets and the scan stops there.
+     *
+     * @return True if target rocks were found, false if there is no target rock within SCAN_DISTANCE of the player.
+     */
+    public boolean scanMine(GameContext context) {
+        for (int i = 0; i < SCANS; i++) {
+            if (i > 0) context.clock().sleep(WorldSnapshot.TICK_LENGTH);
+            scan(context.world().findNearestRocks(SCAN_DISTANCE));
+            if (rocks.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Records the target rocks among the given rocks, and the rocks that are depleted and so cannot be classified.
+     */
+    public void scan(ObservedRock[] observedRocks) {
+        for (ObservedRock rock : observedRocks) {
+            Rock type = rock.getType();
+            if (type == null) {
+                if (!rocks.containsKey(rock.getPackedTile())) unclassifiedTiles.add(rock.getPackedTile());
+                continue;
+            }
+            unclassifiedTiles.remove(rock.getPackedTile());
+            if (isTarget(type)) rocks.put(rock.getPackedTile(), type);
+        }
+    }
+
+    private boolean isTarget(Rock type) {
+        for (RockTarget target : targets) {
+            if (target.getType() == type) return true;
+        }
+        return false;
+    }
+
+    private Rock[] getTargetTypes() {
+        Rock[] types = new Rock[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            types[i] = targets[i].getType();
+        }
+        return types;
+    }
+
+    /**
+     * @return True if every rock next to the standing tile of the last profile created was seen with ore, so the
+     * profile lacks none of its target rocks; false if one was depleted in every scan or no profile was created.
+     */
+    public boolean isComplete() {
+        return standingTile >= 0 && getTilesNextTo(unclassifiedTiles, standingTile).isEmpty();
+    }
+
+    /**
+     * Picks the standing tile with the most target rocks next to its sides; ties go to the tile nearest the player.
+     *
+     * @return The profile of the rocks next to the best standing tile, or null if no target rock has been seen.
+     */
+    public MineProfile createProfile(RSTile playerPosition) {
+        if (rocks.isEmpty()) return null;
+
+        int packedPosition = Tiles.pack(playerPosition);
+        int bestTile = -1;
+        int bestCount = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int rockTile : rocks.keySet()) {
+            // the standing tiles a rock can be mined from are the ones next to its sides
+            for (int[] side : SIDES) {
+                int tile = Tiles.pack(Tiles.getX(rockTile) + side[0], Tiles.getY(rockTile) + side[1],
+                        Tiles.getPlane(rockTile));
+                if (rocks.containsKey(tile) || unclassifiedTiles.contains(tile)) continue; // rocks cannot be stood on
+
+                int count = getRocksNextTo(tile).size();
+                int distance = Tiles.distanceSquared(packedPosition, tile);
+                if (count > bestCount || (count == bestCount && distance < bestDistance)) {
+                    bestTile = tile;
+                    bestCount = count;
+                    bestDistance = distance;
+                }
+            }
+        }
+
+        standingTile = bestTile;
+        List<Integer> cluster = getRocksNextTo(bestTile);
+        int[] rockTiles = new int[cluster.size()];
+        Rock[] rockTypes = new Rock[cluster.size()];
+        int minX = Tiles.getX(bestTile), minY = Tiles.getY(bestTile);
+        int maxX = minX, maxY = minY;
+        for (int i = 0; i < rockTiles.length; i++) {
+            rockTiles[i] = cluster.get(i);
+            rockTypes[i] = rocks.get(rockTiles[i]);
+            minX = Math.min(minX, Tiles.getX(rockTiles[i]));
+            minY = Math.min(minY, Tiles.getY(rockTiles[i]));
+            maxX = Math.max(maxX, Tiles.getX(rockTiles[i]));
+            maxY = Math.max(maxY, Tiles.getY(rockTiles[i]));
+        }
+
+        // the mine area has a tile of margin around the cluster, so the player is in it on every side of a rock
+        int plane = Tiles.getPlane(bestTile);
+        return new MineProfile(Tiles.pack(minX - 1, minY - 1, plane), Tiles.pack(maxX + 1, maxY + 1, plane),
+                bestTile, bestTile, rockTiles, rockTypes, getTargetTypes());
+    }
+
+    private List<Integer> getRocksNextTo(int tile) {
+        return getTilesNextTo(rocks.keySet(), tile);
+    }
+
+    private static List<Integer> getTilesNextTo(Set<Integer> rockTiles, int tile) {
+        List<Integer> cluster = new ArrayList<>();
+        for (int rockTile : rockTiles) {
+            if (MineIndex.isNextTo(tile, rockTile)) cluster.add(rockTile);
+        }
+        return cluster;
+    }
+
+}
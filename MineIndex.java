@@ -0,0 +1,142 @@
+/**
+ * The MineIndex class is a spatial index of a mine, built once when a mining session starts. It holds the tiles of the
+ * mine area and the tiles of the predetermined rocks, and finds the tile every predetermined rock can be mined from
+ * (if there is one). It also remembers which tiles have been found to be inside a bank. Location checks are then
+ * primitive lookups instead of geometry or game client calls, except for tiles not yet found to be inside a bank.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSArea;
+import org.tribot.api2007.types.RSTile;
+
+public class MineIndex {
+
+    private static final int[] NO_ROCKS = new int[0];
+
+    // a rock is mined from a tile next to one of its sides: south, west, north or east of it
+    private static final int[] SIDE_X = {0, -1, 0, 1};
+    private static final int[] SIDE_Y = {-1, 0, 1, 0};
+
+    private final TileMap<Boolean> mineTiles;       // every tile of the mine area
+    private final int[] rockTiles;                  // the packed predetermined rock tiles, in rockPositions order
+    private final RSTile standingTile;              // the tile next to every predetermined rock, or null if none
+    private final TileMap<Boolean> bankTiles = new TileMap<>(); // tiles known to be inside a bank
+
+    /**
+     * @param rockPositions: the predetermined rock positions, or null if there are none
+     * */
+    public MineIndex(RSArea mine, RSTile[] rockPositions) {
+        RSTile[] areaTiles = mine.getAllTiles();
+        mineTiles = new TileMap<>(areaTiles.length);
+        for (RSTile tile : areaTiles) {
+            mineTiles.put(Tiles.pack(tile), Boolean.TRUE);
+        }
+
+        if (rockPositions == null) {
+            rockTiles = NO_ROCKS;
+            standingTile = null;
+            return;
+        }
+
+        rockTiles = new int[rockPositions.length];
+        for (int i = 0; i < rockPositions.length; i++) {
+            rockTiles[i] = Tiles.pack(rockPositions[i]);
+        }
+        standingTile = findStandingTile(rockTiles);
+    }
+
+    /**
+     * Finds a tile next to a side of every rock, from which all of them can be mined without moving. The sides of the
+     * first rock are tried in the order south, west, north, east.
+     *
+     * @return The standing tile, or null if no tile is next to every rock.
+     */
+    private static RSTile findStandingTile(int[] rockTiles) {
+        if (rockTiles.length == 0) return null;
+
+        int firstRock = rockTiles[0];
+        for (int side = 0; side < SIDE_X.length; side++) {
+            int tile = Tiles.pack(Tiles.getX(firstRock) + SIDE_X[side], Tiles.getY(firstRock) + SIDE_Y[side],
+                    Tiles.getPlane(firstRock));
+
+            boolean nextToEveryRock = true;
+            for (int rockTile : rockTiles) {
+                if (!isNextTo(tile, rockTile)) {
+                    nextToEveryRock = false;
+                    break;
+                }
+            }
+            if (nextToEveryRock) return Tiles.unpack(tile);
+        }
+        return null;
+    }
+
+    /**
+     * @return True if the tile is next to a side of the rock's tile, so the rock can be mined from it.
+     */
+    static boolean isNextTo(int tile, int rockTile) {
+        if (Tiles.getPlane(tile) != Tiles.getPlane(rockTile)) return false;
+        return Math.abs(Tiles.getX(tile) - Tiles.getX(rockTile)) + Math.abs(Tiles.getY(tile) - Tiles.getY(rockTile))
+                == 1;
+    }
+
+    /**
+     * @return The tile next to a side of every predetermined rock, or null if there are no predetermined rocks or no
+     * such tile.
+     */
+    public RSTile getStandingTile() {
+        return standingTile;
+    }
+
+    /**
+     * @return True if the position is inside the mine area, false otherwise.
+     */
+    public boolean isInMine(RSTile position) {
+        return mineTiles.containsKey(Tiles.pack(position));
+    }
+
+    /**
+     * Checks if a position is inside a bank. Once a tile is found to be inside a bank it is remembered, and the bank is
+     * no longer asked about it. A tile found to be outside is asked about again on every check: the bank's answer comes
+     * from the booths and bankers on the screen, so it can be wrong while the camera turns or the region loads.
+     *
+     * @return True if the position is inside a bank, false otherwise.
+     */
+    public boolean isInBank(RSTile position, BankView bank) {
+        int packedTile = Tiles.pack(position);
+        if (bankTiles.containsKey(packedTile)) return true;
+
+        if (!bank.isInBank()) return false;
+        bankTiles.put(packedTile, Boolean.TRUE);
+        return true;
+    }
+
+    /**
+     * Remembers a position as inside a bank, e.g. because the bank was used from it.
+     */
+    public void addBankTile(RSTile position) {
+        bankTiles.put(Tiles.pack(position), Boolean.TRUE);
+    }
+
+    /**
+     * @return The distance within which rocks must be searched from a position to find every predetermined rock, or
+     * 0 if there are no predetermined rocks on the position's plane.
+     */
+    public int getCoverDistance(RSTile position) {
+        if (rockTiles.length == 0) return 0;
+
+        int packedPosition = Tiles.pack(position);
+
+        int furthest = 0;
+        for (int rockTile : rockTiles) {
+            furthest = Math.max(furthest, Tiles.distanceSquared(packedPosition, rockTile));
+        }
+        if (furthest == Integer.MAX_VALUE) return 0;
+
+        return (int) Math.ceil(Math.sqrt(furthest)) + 1;
+    }
+
+}
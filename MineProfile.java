@@ -0,0 +1,168 @@
+/**
+ * The MineProfile class describes a mine so it can be mined without configuring it by hand: the mine area, the area to
+ * walk to when going to the mine, the positions and types of its rocks, and the rock types it was found for. Profiles
+ * are found by {@link MineDiscovery} and saved in a compact binary file, so later runs load them instead of scanning
+ * the mine again, as long as they mine the same rock types.
+ *
+ * File format (big-endian): the magic number, the format version, the mine and entrance corners as packed tiles (see
+ * {@link Tiles#pack}), the rock count and, for every rock, its packed tile and the name of its type; then the count
+ * and names of the types the profile was found for. Version 1 files end after the rocks; their profiles are taken to
+ * be found for the types of their rocks.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSArea;
+import org.tribot.api2007.types.RSTile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+public class MineProfile {
+
+    private static final int MAGIC = 0x4D494E45; // "MINE"
+    private static final int VERSION = 2;
+
+    private final int mineMin;       // the packed south-west corner of the mine area
+    private final int mineMax;       // the packed north-east corner of the mine area
+    private final int entranceMin;   // the packed south-west corner of the entrance area
+    private final int entranceMax;   // the packed north-east corner of the entrance area
+    private final int[] rockTiles;    // the packed rock tiles
+    private final Rock[] rockTypes;   // the type of every rock, in rockTiles order
+    private final Rock[] targetTypes; // the types the mine was scanned for
+
+    public MineProfile(int mineMin, int mineMax, int entranceMin, int entranceMax, int[] rockTiles,
+                       Rock[] rockTypes, Rock[] targetTypes) {
+        if (rockTiles.length != rockTypes.length) {
+            throw new IllegalArgumentException("Every rock needs a type: " + rockTiles.length + " tiles, "
+                    + rockTypes.length + " types");
+        }
+        this.mineMin = mineMin;
+        this.mineMax = mineMax;
+        this.entranceMin = entranceMin;
+        this.entranceMax = entranceMax;
+        this.rockTiles = rockTiles;
+        this.rockTypes = rockTypes;
+        this.targetTypes = targetTypes;
+    }
+
+    public RSArea getMine() {
+        return new RSArea(Tiles.unpack(mineMin), Tiles.unpack(mineMax));
+    }
+
+    public RSArea getMineEntrance() {
+        return new RSArea(Tiles.unpack(entranceMin), Tiles.unpack(entranceMax));
+    }
+
+    public RSTile[] getRockPositions() {
+        RSTile[] positions = new RSTile[rockTiles.length];
+        for (int i = 0; i < rockTiles.length; i++) {
+            positions[i] = Tiles.unpack(rockTiles[i]);
+        }
+        return positions;
+    }
+
+    /**
+     * @return True if the profile was found for exactly the types of the targets, so none of its rocks is of a type no
+     * longer mined and no rock of a newly targeted type is missing from it; false if the mine must be scanned again.
+     */
+    public boolean isFor(RockTarget[] targets) {
+        Set<Rock> types = EnumSet.noneOf(Rock.class);
+        for (RockTarget target : targets) {
+            types.add(target.getType());
+        }
+        return types.containsAll(toSet(rockTypes)) && types.equals(toSet(targetTypes));
+    }
+
+    private static Set<Rock> toSet(Rock[] types) {
+        Set<Rock> set = EnumSet.noneOf(Rock.class);
+        for (Rock type : types) {
+            set.add(type);
+        }
+        return set;
+    }
+
+    /**
+     * Makes a config mine this profile's mine and rocks.
+     */
+    public void applyTo(MiningConfig config) {
+        config.setMine(getMine(), getMineEntrance());
+        config.setRockPositions(getRockPositions());
+    }
+
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(mineMin);
+            out.writeInt(mineMax);
+            out.writeInt(entranceMin);
+            out.writeInt(entranceMax);
+            out.writeShort(rockTiles.length);
+            for (int i = 0; i < rockTiles.length; i++) {
+                out.writeInt(rockTiles[i]);
+                out.writeUTF(rockTypes[i].name());
+            }
+            out.writeShort(targetTypes.length);
+            for (Rock type : targetTypes) {
+                out.writeUTF(type.name());
+            }
+        }
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is not a mine profile of a supported version
+     */
+    public static MineProfile load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + " is not a mine profile");
+            int version = in.readUnsignedByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported mine profile version " + version);
+            }
+
+            int mineMin = in.readInt();
+            int mineMax = in.readInt();
+            int entranceMin = in.readInt();
+            int entranceMax = in.readInt();
+
+            int rockCount = in.readUnsignedShort();
+            int[] rockTiles = new int[rockCount];
+            Rock[] rockTypes = new Rock[rockCount];
+            for (int i = 0; i < rockCount; i++) {
+                rockTiles[i] = in.readInt();
+                rockTypes[i] = readType(in, file);
+            }
+
+            Rock[] targetTypes;
+            if (version == 1) {
+                targetTypes = toSet(rockTypes).toArray(new Rock[0]);
+            } else {
+                targetTypes = new Rock[in.readUnsignedShort()];
+                for (int i = 0; i < targetTypes.length; i++) {
+                    targetTypes[i] = readType(in, file);
+                }
+            }
+            return new MineProfile(mineMin, mineMax, entranceMin, entranceMax, rockTiles, rockTypes, targetTypes);
+        }
+    }
+
+    private static Rock readType(DataInputStream in, File file) throws IOException {
+        try {
+            return Rock.valueOf(in.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown rock type in " + file, e);
+        }
+    }
+
+}
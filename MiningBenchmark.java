@@ -0,0 +1,251 @@
+/**
+ * This class benchmarks the targeting and filtering code that runs on every poll of the mining loop (matching rock
+ * colours, scoring rocks of several types to select the next rock to mine or to hover, and logging below the enabled
+ * level) against synthetic rock arrays of realistic sizes. For every
+ * benchmark it reports the time and the bytes allocated per operation.
+ *
+ * Results can be saved as a baseline and later runs compared against it, failing if a benchmark got slower or
+ * allocates more than the baseline allows.
+ *
+ * Usage: MiningBenchmark [--save baseline.properties] [--compare baseline.properties]
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import com.sun.management.ThreadMXBean;
+import org.tribot.api2007.types.RSTile;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+public class MiningBenchmark {
+
+    private static final int[] ROCK_COUNTS = {5, 20, 50, 200};
+
+    private static final long WARMUP_TIME = 500;       // milliseconds per benchmark
+    private static final long MEASUREMENT_TIME = 1000;  // milliseconds per benchmark
+
+    private static final double ALLOWED_SLOWDOWN = 1.25;  // a result may be this much worse than its baseline
+    private static final double ALLOWED_EXTRA_BYTES = 16; // bytes per operation
+
+    private static final RSTile PLAYER_POSITION = new RSTile(3226, 3149, 0);
+    private static final RockTargets TARGETS = createTargets(); // every rock type, each with a different value
+
+    // benchmark results are written here so the JIT cannot drop the operations that produced them
+    private static volatile int blackhole;
+
+    private abstract static class Benchmark {
+        private final String name;
+
+        private Benchmark(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Runs one operation on the given rocks, looking for the given rock type. The type changes between
+         * operations so the JIT cannot hoist the operation out of the measurement loop.
+         *
+         * @return A value depending on the result, so the operation cannot be optimised away.
+         */
+        abstract int run(ObservedRock[] rocks, Rock type);
+    }
+
+    private static final Benchmark[] BENCHMARKS = {
+            new Benchmark("isRockCorrectColor") {
+                @Override
+                int run(ObservedRock[] rocks, Rock type) {
+                    int matches = 0;
+                    for (ObservedRock rock : rocks) {
+                        if (MiningHelper.isRockCorrectColor(rock, type)) matches++;
+                    }
+                    return matches;
+                }
+            },
+            new Benchmark("RockColourIndex.matches") {
+                @Override
+                int run(ObservedRock[] rocks, Rock type) {
+                    int matches = 0;
+                    for (ObservedRock rock : rocks) {
+                        if (RockColourIndex.matches(rock.getColours(), type)) matches++;
+                    }
+                    return matches;
+                }
+            },
+            new Benchmark("getBestRock select") {
+                @Override
+                int run(ObservedRock[] rocks, Rock type) {
+                    ObservedRock rock = TARGETS.getBestRock(rocks, null, PLAYER_POSITION);
+                    return rock == null ? 0 : rock.getPackedTile();
+                }
+            },
+            new Benchmark("getBestRock hover") {
+                @Override
+                int run(ObservedRock[] rocks, Rock type) {
+                    ObservedRock rock = TARGETS.getBestRock(rocks, rocks[rocks.length / 2], PLAYER_POSITION);
+                    return rock == null ? 0 : rock.getPackedTile();
+                }
+            },
+            new Benchmark("MiningLog.debug disabled") {
+                @Override
+                int run(ObservedRock[] rocks, Rock type) {
+                    for (ObservedRock rock : rocks) {
+                        MiningLog.log(LogLevel.DEBUG, "Hovering", rock, type);
+                    }
+                    return rocks.length;
+                }
+            },
+    };
+
+    private static RockTargets createTargets() {
+        Rock[] types = Rock.values();
+        RockTarget[] targets = new RockTarget[types.length];
+        for (int i = 0; i < types.length; i++) {
+            targets[i] = new RockTarget(types[i], types[i].name(), 10 + 5 * i, 0, 1);
+        }
+
+        MiningConfig config = new MiningConfig(null, null);
+        config.setTargets(targets);
+        TribotClock clock = new TribotClock();
+        return new RockTargets(config, new ContentionTracker(clock), new RockBoard(clock));
+    }
+
+    public static void main(String[] args) throws IOException {
+        String savePath = null;
+        String comparePath = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--save")) savePath = args[i + 1];
+            else if (args[i].equals("--compare")) comparePath = args[i + 1];
+        }
+
+        MiningLog.setStandardOutput();
+        MiningLog.setLevel(LogLevel.INFO);
+
+        Properties results = new Properties();
+        System.out.println(String.format("%-26s %6s %12s %12s", "Benchmark", "Rocks", "ns/op", "bytes/op"));
+        for (Benchmark benchmark : BENCHMARKS) {
+            for (int rockCount : ROCK_COUNTS) {
+                ObservedRock[] rocks = createRocks(rockCount, new Random(rockCount));
+                double[] result = measure(benchmark, rocks);
+
+                String key = benchmark.name + "." + rockCount;
+                results.setProperty(key + ".ns", String.format(Locale.ROOT, "%.1f", result[0]));
+                results.setProperty(key + ".bytes", String.format(Locale.ROOT, "%.1f", result[1]));
+                System.out.println(String.format("%-26s %6d %12.1f %12.1f", benchmark.name, rockCount, result[0],
+                        result[1]));
+            }
+        }
+
+        if (savePath != null) {
+            try (OutputStream out = new FileOutputStream(savePath)) {
+                results.store(out, "MiningBenchmark baseline");
+            }
+        }
+
+        if (comparePath != null && !compare(results, comparePath)) System.exit(1);
+    }
+
+    /**
+     * Creates rocks around the player with a realistic mix of types: a third of them have the desired type, a third
+     * have another type and a third are depleted.
+     */
+    private static ObservedRock[] createRocks(int count, Random random) {
+        Rock[] types = Rock.values();
+
+        ObservedRock[] rocks = new ObservedRock[count];
+        for (int i = 0; i < count; i++) {
+            RSTile position = PLAYER_POSITION.translate(random.nextInt(31) - 15, random.nextInt(31) - 15);
+
+            short[] colours;
+            switch (i % 3) {
+                case 0:
+                    colours = Rock.TIN.getModifiedColours();
+                    break;
+                case 1:
+                    colours = types[random.nextInt(types.length)].getModifiedColours();
+                    break;
+                default:
+                    colours = null;
+            }
+            rocks[i] = new ObservedRock(null, position, 11360 + i, colours);
+        }
+
+        // the desired rocks should not all be at the front
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            ObservedRock rock = rocks[i];
+            rocks[i] = rocks[j];
+            rocks[j] = rock;
+        }
+        return rocks;
+    }
+
+    /**
+     * Runs a benchmark for the warmup time, then measures it for the measurement time.
+     *
+     * @return The nanoseconds and the bytes allocated per operation.
+     */
+    private static double[] measure(Benchmark benchmark, ObservedRock[] rocks) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Rock[] types = {Rock.TIN, Rock.TIN, Rock.TIN, Rock.values()[0]};
+
+        int sink = 0;
+        long warmupEnd = System.nanoTime() + WARMUP_TIME * 1000000;
+        while (System.nanoTime() < warmupEnd) {
+            for (int i = 0; i < 1000; i++) sink += benchmark.run(rocks, types[i & 3]);
+        }
+
+        long operations = 0;
+        long allocatedStart = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long end = start + MEASUREMENT_TIME * 1000000;
+        long now;
+        do {
+            for (int i = 0; i < 1000; i++) sink += benchmark.run(rocks, types[i & 3]);
+            operations += 1000;
+            now = System.nanoTime();
+        } while (now < end);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedStart;
+
+        blackhole = sink;
+        return new double[] {(double) (now - start) / operations, (double) allocated / operations};
+    }
+
+    /**
+     * Compares results against a saved baseline and prints every regression.
+     *
+     * @return True if no benchmark regressed, false otherwise.
+     */
+    private static boolean compare(Properties results, String baselinePath) throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = new FileInputStream(baselinePath)) {
+            baseline.load(in);
+        }
+
+        boolean passed = true;
+        for (String key : results.stringPropertyNames()) {
+            String baselineValue = baseline.getProperty(key);
+            if (baselineValue == null) continue;
+
+            double result = Double.parseDouble(results.getProperty(key));
+            double expected = Double.parseDouble(baselineValue);
+            boolean regressed = key.endsWith(".ns") ? result > expected * ALLOWED_SLOWDOWN
+                    : result > expected + ALLOWED_EXTRA_BYTES;
+            if (regressed) {
+                System.out.println(String.format("REGRESSION %s: %.1f (baseline %.1f)", key, result, expected));
+                passed = false;
+            }
+        }
+        return passed;
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * The MiningConfig class holds the settings of one mining session: what to mine, where to mine it and what to do when
+ * the inventory is full. Every session has its own config, so sessions with different settings can run side by side.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSArea;
+import org.tribot.api2007.types.RSTile;
+
+public class MiningConfig {
+
+    private boolean banking = true;         // if true, character will bank; if false, character will drop
+    private boolean powerMining = false;    // if true and not banking, ores are dropped while the next one is mined
+    private RockTarget[] targets = {new RockTarget(Rock.TIN, "Tin ore", 17.5, 0, 1)}; // the rock types to mine
+    private double gpWeight = 0.1;          // the XP one GP of banked ore is worth when choosing between rock types
+    private int miningRange = 5;            // the range to mine nearest rocks within
+    private RSTile[] rockPositions = null;  // the rocks to mine, or null to mine the nearest rocks within miningRange
+    private boolean stationary = false;     // if true, the rocks are mined from one tile next to all of them
+    private int hoverPauseMin = 250;        // milliseconds to pause before moving the cursor to a new rock
+    private int hoverPauseMax = 400;
+    private int depletionTimeoutMin = 35000; // milliseconds a rock is mined at most before it is given up on
+    private int depletionTimeoutMax = 40000;
+    private RSArea mine;                    // area to mine
+    private RSArea mineEntrance;            // area to walk to when going to the mine
+    private int[] hopWorlds = null;         // the worlds to hop between, or null to stay on the current world
+    private double hopThreshold = 0;        // the ores/hour below which another world is hopped to
+    private RouteCache routeCache = new RouteCache(); // routes between the mine and the bank, shared by its sessions
+
+    public MiningConfig(RSArea mine, RSArea mineEntrance) {
+        this.mine = mine;
+        this.mineEntrance = mineEntrance;
+    }
+
+    public boolean isBanking() {
+        return banking;
+    }
+
+    public void setBanking(boolean banking) {
+        this.banking = banking;
+    }
+
+    public boolean isPowerMining() {
+        return powerMining;
+    }
+
+    public void setPowerMining(boolean powerMining) {
+        this.powerMining = powerMining;
+    }
+
+    public boolean isStationary() {
+        return stationary;
+    }
+
+    /**
+     * @param stationary: if true, the character stands on the tile next to every predetermined rock and mines them
+     *                  from there without walking; only possible if such a tile exists (e.g. for 2 or 3 rocks around
+     *                  one tile)
+     * */
+    public void setStationary(boolean stationary) {
+        this.stationary = stationary;
+    }
+
+    public int getHoverPauseMin() {
+        return hoverPauseMin;
+    }
+
+    public int getHoverPauseMax() {
+        return hoverPauseMax;
+    }
+
+    /**
+     * @param hoverPauseMin: the fewest milliseconds to pause before moving the cursor to the next rock; the pause is
+     *                     random between the two, and is only made if it fits in the current tick (see
+     *                     {@link TickScheduler})
+     * */
+    public void setHoverPause(int hoverPauseMin, int hoverPauseMax) {
+        this.hoverPauseMin = hoverPauseMin;
+        this.hoverPauseMax = hoverPauseMax;
+    }
+
+    public int getDepletionTimeoutMin() {
+        return depletionTimeoutMin;
+    }
+
+    public int getDepletionTimeoutMax() {
+        return depletionTimeoutMax;
+    }
+
+    /**
+     * @param depletionTimeoutMin: the fewest milliseconds a rock is mined before it is given up on; the timeout is
+     *                           random between the two, and caps the one {@link AdaptiveWaits} learns
+     * */
+    public void setDepletionTimeout(int depletionTimeoutMin, int depletionTimeoutMax) {
+        this.depletionTimeoutMin = depletionTimeoutMin;
+        this.depletionTimeoutMax = depletionTimeoutMax;
+    }
+
+    /**
+     * Makes a single rock type the only one to mine.
+     *
+     * @param rockTypeStr: the name of the rock's ore, e.g. "Tin ore"
+     * */
+    public void setRockType(Rock rockType, String rockTypeStr) {
+        this.targets = new RockTarget[] {new RockTarget(rockType, rockTypeStr, 1, 0, 1)};
+    }
+
+    public RockTarget[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Sets the rock types to mine; the rock to mine next is chosen between them by {@link RockTargets}.
+     * */
+    public void setTargets(RockTarget... targets) {
+        this.targets = targets;
+    }
+
+    public int[] getHopWorlds() {
+        return hopWorlds;
+    }
+
+    public double getHopThreshold() {
+        return hopThreshold;
+    }
+
+    /**
+     * Makes the session hop to another world when the one it is on yields fewer ores than a threshold (see
+     * {@link WorldSelector}).
+     *
+     * @param hopWorlds: the worlds to hop between, or null to stay on the current world
+     * @param hopThreshold: the ores/hour, counting only the time spent mining, below which a world is left
+     * */
+    public void setHopWorlds(int[] hopWorlds, double hopThreshold) {
+        this.hopWorlds = hopWorlds;
+        this.hopThreshold = hopThreshold;
+    }
+
+    public double getGpWeight() {
+        return gpWeight;
+    }
+
+    public void setGpWeight(double gpWeight) {
+        this.gpWeight = gpWeight;
+    }
+
+    public int getMiningRange() {
+        return miningRange;
+    }
+
+    public void setMiningRange(int miningRange) {
+        this.miningRange = miningRange;
+    }
+
+    public RSTile[] getRockPositions() {
+        return rockPositions;
+    }
+
+    /**
+     * @param rockPositions: the positions of the rocks to mine, or null to mine the nearest rocks within miningRange
+     * */
+    public void setRockPositions(RSTile[] rockPositions) {
+        this.rockPositions = rockPositions;
+    }
+
+    public RSArea getMine() {
+        return mine;
+    }
+
+    public RSArea getMineEntrance() {
+        return mineEntrance;
+    }
+
+    /**
+     * Changes the mine, e.g. to one loaded from a {@link MineProfile}.
+     */
+    public void setMine(RSArea mine, RSArea mineEntrance) {
+        this.mine = mine;
+        this.mineEntrance = mineEntrance;
+    }
+
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    public void setRouteCache(RouteCache routeCache) {
+        this.routeCache = routeCache;
+    }
+
+}
@@ -7,111 +7,69 @@
 
 package scripts.mining;
 
-import org.tribot.api.Clicking;
-import org.tribot.api.General;
-import org.tribot.api.Timing;
-import org.tribot.api2007.Objects;
-import org.tribot.api2007.Player;
 import org.tribot.api2007.types.RSObject;
-import org.tribot.api2007.types.RSObjectDefinition;
-import org.tribot.api2007.types.RSTile;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 
 public class MiningHelper {
 
-    private static boolean isRockMineableWhileWalkingToIt = true;
-    private static RSTile rockToHoverTile = new RSTile(0, 0, 0);
-
-    /**
-     * Checks an array of rocks for one that matches the desired rock type to be mined.
-     *
-     * @return If one is found, return that rock object. Otherwise, return null.
-     */
-    public static RSObject getSuitableMineableRock(RSObject[] rocks, Rock type) {
-        RSObject mineableRock = null;
-        for (int i = 0; i < rocks.length; i++) {
-            if (isRockCorrectColor(rocks[i], type)) {
-                mineableRock = rocks[i];
-                break;
-            }
-        }
-        return mineableRock;
-    }
+    private static final int CURSOR_MOVE_MAX = 150;    // milliseconds moving the cursor onto a rock takes at most
 
     /**
      * Compares a rock's color to a set of pre-defined desired colors (a rock can have a different color as another of
-     * the same type).
+     * the same type). The comparison is a lookup into the precomputed {@link RockColourIndex}.
      *
      * @return True if the rock's color matches; false otherwise.
      */
     public static boolean isRockCorrectColor(RSObject rock, Rock rockEnum) {
-        RSObjectDefinition rockDef = rock.getDefinition();
-        if (rockDef == null) return false;
-
-        short[] validColors = rockEnum.getModifiedColours();
-        short[] rockColors = rockDef.getModifiedColors();
-
-        if (rockColors == null || rockColors.length == 0) return false;
-
-        for (short rockColor : rockColors) {
-            if (doesConstantColorsContain(validColors, rockColor)) return true;
-        }
-
-        return false;
+        return RockColourIndex.matches(rock, rockEnum);
     }
 
-    /**
-     * Helper method to compare a rock's constant colors to the color(s) contained within a rock's modified colors.
-     *
-     * @return True if it matches; false otherwise.
-     */
-    public static boolean doesConstantColorsContain(short[] constantColors, short rockColor) {
-        for (short constantColor : constantColors) {
-            if (constantColor == rockColor) return true;
-        }
-
-        return false;
+    public static boolean isRockCorrectColor(ObservedRock rock, Rock rockEnum) {
+        return rock.isType(rockEnum);
     }
 
     /**
-     * Checks if a rock is on-screen and if it is still mineable while walking to it.
+     * Checks if a rock is on-screen and if it is still mineable while walking to it. The claim on the rock (see
+     * {@link RockBoard}) is renewed on every poll. A rock that loses its color, or that a sibling bot claims because
+     * the claim lapsed, ends the wait as a failure, and its wait is not learned as a WAIT_FOR_ROCK latency.
      *
      * @return True if the rock is present; false otherwise.
      */
-    public static boolean isRockOnScreenAndMineable(RSObject rock, Rock type) {
-        BooleanSupplier rockOnScreenOrLostItsColor = new BooleanSupplier() {
+    public static boolean isRockOnScreenAndMineable(ObservedRock rock, Rock type) {
+        GameContext context = GameContext.current();
+
+        BooleanSupplier rockOnScreen = new BooleanSupplier() {
             @Override
             public boolean getAsBoolean() {
-                General.sleep(200, 250);
-
-                if (hasRockLostItsColor(rock, type)) {
-                    isRockMineableWhileWalkingToIt = false;
-                    return true;
-                }
-                return rock.isOnScreen();
+                return context.world().isOnScreen(rock);
             }
         };
-        if (Timing.waitCondition(rockOnScreenOrLostItsColor, General.random(11000, 12000))) {
-            if (isRockMineableWhileWalkingToIt) return true;
-        }
-        isRockMineableWhileWalkingToIt = true;
-        return false;
+        BooleanSupplier rockLost = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return hasRockLostItsColor(rock, type) || !context.board().claim(rock.getPackedTile());
+            }
+        };
+        return context.waits().waitCondition(MiningPhase.WAIT_FOR_ROCK, rockOnScreen, rockLost, 11000, 12000, 200,
+                250);
     }
 
     /**
-     * Updates rock and checks if it has lost its color/ore.
+     * Updates rock from the current tick's snapshot and checks if it has lost its color/ore.
      *
      * @return True if it has; false otherwise.
      */
-    public static boolean hasRockLostItsColor(RSObject rock, Rock type) {
+    public static boolean hasRockLostItsColor(ObservedRock rock, Rock type) {
         // refreshes rock object
-        RSObject[] rocks = Objects.getAt(rock.getPosition());
+        ObservedRock refreshedRock = GameContext.current().snapshot().getRockAt(rock.getPosition());
 
-        if (rocks.length == 0) return false;
+        if (refreshedRock == null) return false;
 
         // checks its color
-        return !isRockCorrectColor(rocks[0], type);
+        return !isRockCorrectColor(refreshedRock, type);
     }
 
     /**
@@ -120,9 +78,10 @@ public class MiningHelper {
      * @return True if the player is mining a rock, false otherwise.
      */
     public static boolean isMining() {
-        General.sleep(250);
+        GameContext context = GameContext.current();
+        context.clock().sleep(250);
 
-        if (Player.getAnimation() > 0) return true;
+        if (context.world().getPlayerAnimation() > 0) return true;
 
         return false;
     }
@@ -133,126 +92,213 @@ public class MiningHelper {
      * @return True if mining, false otherwise.
      */
     public static boolean isCharacterMining() {
+        GameContext context = GameContext.current();
+
         BooleanSupplier isMining = new BooleanSupplier() {
             @Override
             public boolean getAsBoolean() {
-                General.sleep(250);
-                return isMining();
+                return context.world().getPlayerAnimation() > 0;
             }
         };
-        return Timing.waitCondition(isMining, General.random(5000, 6000));
+        return context.waits().waitCondition(MiningPhase.WAIT_FOR_ANIMATION, isMining, 5000, 6000, 500, 500);
     }
 
 
     /**
-     * Checks and waits for a rock's ore to be extracted after clicking its "mine" option.
+     * Checks and waits for a rock's ore to be extracted after clicking its "mine" option. The rock's tile is watched by
+     * the current {@link WorldView}, so the wait ends as soon as the rock changes rather than on the next poll. Every
+     * change seen is passed to the {@link TickScheduler}; once it knows the tick phase, the waiting is done in whole
+     * ticks and dropping or hovering is only started if it ends before the next tick's changes are seen, so a
+     * depletion is never noticed late because of them (a pause that does not fit is left to the next tick). The claim
+     * on the rock is renewed on every poll; if a sibling bot has claimed the rock instead, it is left to the sibling.
      *
-     * @return True if the rock has lost its ore/color, false otherwise.
+     * @return True if the rock has lost its ore/color, false otherwise (including when the rock is left).
      */
-    public static boolean isRockDoneBeingMined(RSObject rockBeingMined, Rock typeToMine, int distance) {
+    public static boolean isRockDoneBeingMined(ObservedRock rockBeingMined, Rock typeToMine, int distance) {
+        GameContext context = GameContext.current();
+        MiningSession session = MiningSession.current();
+        MiningConfig config = session.getConfig();
+        TickScheduler ticks = context.ticks();
+        final boolean dropWhileMining = config.isPowerMining() && !config.isBanking();
+        final AtomicReference<CompletableFuture<ObservedRock>> rockChange =
+                new AtomicReference<>(context.world().watchRock(rockBeingMined));
+
         BooleanSupplier isRockMined = new BooleanSupplier() {
             @Override
             public boolean getAsBoolean() {
-                General.sleep(600);
-
-                if(distance > 0) {
-                    hoverNextNearestRock(rockBeingMined, typeToMine, distance);
-                } else if (MiningScriptOOP.getPredeterminedRocks().length == 1) {
+                // the next rock is readied first (a new one takes a whole tick), and an ore is dropped once it is
+                if (!ticks.fitsInTick(config.getHoverPauseMax() + CURSOR_MOVE_MAX)) {
+                    // do nothing == hover in the next tick
+                } else if(distance > 0) {
+                    hoverNextNearestRock(rockBeingMined, distance);
+                } else if (session.getPredeterminedRocks().length == 1) {
                     // do nothing == don't hover
                 } else {
-                    hoverNextPredeterminedRock(rockBeingMined, typeToMine);
+                    hoverNextPredeterminedRock(rockBeingMined);
                 }
 
-                return hasRockLostItsColor(rockBeingMined, typeToMine);
+                if (dropWhileMining && ticks.fitsInTick(getDropTime(context))) {
+                    dropOre(session.getTargets().getOreNames());
+
+                    // the cursor goes back on the readied rock, so it can be clicked when this one depletes
+                    if (ticks.fitsInTick(CURSOR_MOVE_MAX)) session.getCursor().restore();
+                }
+
+                long timeout = ticks.getDelayUntilNextTick(WorldSnapshot.TICK_LENGTH);
+                if (!context.clock().await(rockChange.get(), timeout)) return false;
+                ticks.observeChange(context.clock().currentTimeMillis());
+
+                // the rocks cached for this tick are out of date now
+                context.snapshot().invalidate();
+
+                // rock lost its ore or disappeared altogether -> nothing left to mine
+                ObservedRock changedRock = rockChange.get().getNow(null);
+                if (changedRock == null) return true;
+
+                context.respawns().observe(changedRock, context.clock().currentTimeMillis());
+                context.board().observe(changedRock);
+                if (!isRockCorrectColor(changedRock, typeToMine)) return true;
+
+                // rock changed but still has its ore -> keep watching it
+                rockChange.set(context.world().watchRock(changedRock));
+                return false;
+            }
+        };
+
+        BooleanSupplier isClaimLost = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                // the claim on the rock holds as long as it is being mined
+                if (context.board().claim(rockBeingMined.getPackedTile())) return false;
+
+                MiningLog.info("Sibling Bot Claimed the Rock: Leaving It");
+                return true;
             }
         };
-        return Timing.waitCondition(isRockMined, General.random(35000, 40000));
+
+        try {
+            return context.waits().waitCondition(MiningPhase.WAIT_FOR_DEPLETION, isRockMined, isClaimLost,
+                    config.getDepletionTimeoutMin(), config.getDepletionTimeoutMax());
+        } finally {
+            context.world().unwatchRock(rockBeingMined);
+        }
     }
 
     /**
-     * Hovers the cursor over the next nearest rock.
+     * @return The milliseconds dropping one ore usually takes at most (90% of the drops so far were faster), or 0 if no
+     * ore has been dropped yet. Drops of a full inventory are timed apart, so they never keep single drops from
+     * fitting.
+     * */
+    private static long getDropTime(GameContext context) {
+        return context.metrics().getDurations(MiningPhase.DROP_ONE).getPercentile(90);
+    }
+
+    /**
+     * Drops one ore while a rock is being mined (power-mining), so the inventory never fills and no time is spent
+     * dropping a full inventory. The character keeps mining while the ore is dropped.
      *
-     * @return True if a rock is successfully being hovered over, false otherwise.
+     * @param oreNames: the names of the ores to drop
+     *
+     * @return True if an ore was dropped, false if there was none to drop or the drop failed.
      * */
-    public static boolean hoverNextNearestRock(RSObject rockBeingMined, Rock type, int distance) {
-        // refreshes nearest RSObject rocks for further processing
-        RSObject[] nearestRocks = Objects.findNearest(distance, "Rocks");
-        return hover(generateHoverableRocks(rockBeingMined, nearestRocks), type);
+    public static boolean dropOre(String... oreNames) {
+        GameContext context = GameContext.current();
+        MiningSession session = MiningSession.current();
+        if (context.inventory().getCount(oreNames) == 0) return false;
+
+        long start = context.metrics().start();
+        boolean dropped = context.metrics().record(MiningPhase.DROP_ONE, start, context.inventory().dropOne(oreNames));
+        if (dropped) session.onOreDropped();
+        return dropped;
     }
 
     /**
-     * Hovers cursor over the next nearest rock from a predetermined set of rocks.
+     * Hovers the cursor over the next best rock within a distance.
      *
      * @return True if a rock is successfully being hovered over, false otherwise.
      * */
-    public static boolean hoverNextPredeterminedRock(RSObject rockBeingMined, Rock type) {
-        // refreshes predetermined RSObject rocks and sorts them for further processing
-        RSObject[] sortedPredeterminedRocks = Objects.sortByDistance(Player.getPosition(),
-                MiningScriptOOP.createRocks(MiningScriptOOP.getRockPositions()));
+    public static boolean hoverNextNearestRock(ObservedRock rockBeingMined, int distance) {
+        // refreshes nearest rocks for further processing
+        ObservedRock[] nearestRocks = GameContext.current().snapshot().findNearestRocks(distance);
+        return hover(nearestRocks, rockBeingMined);
+    }
 
-        return hover(generateHoverableRocks(rockBeingMined, sortedPredeterminedRocks), type);
+    /**
+     * Hovers cursor over the next best rock from a predetermined set of rocks.
+     *
+     * @return True if a rock is successfully being hovered over, false otherwise.
+     * */
+    public static boolean hoverNextPredeterminedRock(ObservedRock rockBeingMined) {
+        // refreshes predetermined rocks for further processing
+        ObservedRock[] predeterminedRocks = MiningSession.current().createRocks();
+        return hover(predeterminedRocks, rockBeingMined);
     }
 
     /**
-     * Determines a rock suitable for mining from a list of hoverable rocks and hovers the cursor over it.
+     * Determines the best rock to mine next (see {@link RockTargets}), other than the rock being mined, and hovers the
+     * cursor over it. If none of the rocks is mineable, the cursor is moved to the rock expected to respawn soonest
+     * instead.
      *
      * @return True if a rock is successfully being hovered over, false otherwise.
      * */
-    public static boolean hover(RSObject[] rocksToHover, Rock type) {
-        RSObject rockToHover = getSuitableMineableRock(rocksToHover, type);
+    public static boolean hover(ObservedRock[] rocks, ObservedRock rockBeingMined) {
+        GameContext context = GameContext.current();
+        RockTargets targets = MiningSession.current().getTargets();
+        context.snapshot().findOtherPlayers(RockTargets.CONTENDER_DISTANCE);
+
+        ObservedRock rockToHover = targets.getBestRock(rocks, rockBeingMined, context.snapshot().getPlayerPosition());
+        if (rockToHover == null) rockToHover = targets.getSoonestRespawningRock(rocks, context.respawns());
         if (rockToHover == null) return false;
 
-        General.sleep(500);
+        return hoverRock(rockToHover);
+    }
 
-        if (rockToHoverTile.equals(rockToHover.getPosition())) {
-            General.println("Same Rock: Not Moving Cursor");
+    /**
+     * Readies the click on a rock (see {@link CursorPipeline}): moves the cursor onto it after a short pause, or, if
+     * the cursor was already moved onto it, only puts it back on the rock if it has left it.
+     *
+     * @return True if the cursor was moved onto the rock, false otherwise.
+     * */
+    public static boolean hoverRock(ObservedRock rockToHover) {
+        GameContext context = GameContext.current();
+        MiningSession session = MiningSession.current();
+        CursorPipeline cursor = session.getCursor();
+
+        // checked before the pause, so waits that hover on every poll do not pause on every poll
+        if (cursor.isPreparedFor(rockToHover)) {
+            cursor.revalidate(rockToHover);
             return false;
         }
+        MiningConfig config = session.getConfig();
+        context.clock().sleep(config.getHoverPauseMin(), config.getHoverPauseMax());
 
-        rockToHoverTile = rockToHover.getPosition();
-        if (!Clicking.hover(rockToHover)) return false;
-        General.println("Hovering");
+        if (!cursor.prepare(rockToHover)) return false;
+        MiningLog.debug("Hovering");
 
         return true;
     }
 
     /**
-     * Generates an array of hoverable rocks (one that excludes the rock currently being mined).
+     * Used while no rock of the desired types is mineable: moves the character towards the rock that is expected to
+     * respawn soonest (unless they are mining stationary) and hovers the cursor over it, so it can be clicked as soon
+     * as it respawns.
      *
-     * @param rockBeingMined: the rock currently being mined
-     * @param unfilteredRocks: an array of rocks that can be mined, including the rock currently being mined
-     *
-     * @return Array of hoverable rocks.
+     * @return True if a respawning rock was found and is being prepared for; false otherwise.
      * */
-    public static RSObject[] generateHoverableRocks(RSObject rockBeingMined, RSObject[] unfilteredRocks) {
-        RSTile rockBeingMinedPosition = rockBeingMined.getPosition();
-        int rockBeingMinedIndex = 0;
-
-        for (int i = 0; i < unfilteredRocks.length; i++) {
-            if (unfilteredRocks[i].getPosition().equals(rockBeingMinedPosition)) {
-                rockBeingMinedIndex = i;
-                break;
-            }
-        }
+    public static boolean prepareForRespawn(ObservedRock[] rocks) {
+        GameContext context = GameContext.current();
 
-        RSObject[] rocksForHovering = new RSObject[unfilteredRocks.length - 1];
-        boolean isRockRemoved = false;
-
-        for (int i = 0; i < unfilteredRocks.length; i++) {
-            if (rockBeingMinedIndex == i) {
-                // rock being mined encountered -> skip copying over to new array
-                isRockRemoved = true;
-            } else {
-                if (isRockRemoved) {
-                    // rock has been skipped being copied -> index now 1 behind for the new array
-                    rocksForHovering[i - 1] = unfilteredRocks[i];
-                } else {
-                    rocksForHovering[i] = unfilteredRocks[i];
-                }
-            }
+        ObservedRock respawningRock = MiningSession.current().getTargets().getSoonestRespawningRock(rocks,
+                context.respawns());
+        if (respawningRock == null) return false;
+
+        if (!MiningSession.current().isStationary() && !context.world().isOnScreen(respawningRock)) {
+            MiningLog.info("Walking to Respawning Rock");
+            if (!context.walker().walkStraightTo(respawningRock.getPosition())) return false;
         }
 
-        return rocksForHovering;
+        hoverRock(respawningRock);
+        return true;
     }
 
 }
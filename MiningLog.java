@@ -0,0 +1,309 @@
+/**
+ * The MiningLog class is the logger of the mining scripts. Logging never blocks the calling thread: an entry is copied
+ * into a preallocated, lock-free ring buffer and a background thread formats it and writes it as a JSON line. Entries
+ * below the current level are rejected with a single volatile read, so disabled logging costs a few nanoseconds.
+ *
+ * If the ring buffer is full the entry is dropped rather than waited for; the writer reports how many entries were
+ * dropped. A message logged again by the same thread with the same arguments is written at most once per
+ * REPEAT_INTERVAL; the next copy written says how many copies were left out.
+ *
+ * The log goes to TRiBot's script console (see {@link TribotConsoleWriter}) unless it is sent elsewhere with
+ * setOutput; the tools that run without a client send it to the standard output with setStandardOutput.
+ *
+ * Messages should be constants, with the parts that change passed as arguments, e.g.
+ * {@code MiningLog.info("State changed", previousState, nextState, timeInPreviousState)}.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+public class MiningLog {
+
+    private static final int CAPACITY = 8192; // entries; must be a power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final long NO_VALUE = Long.MIN_VALUE;
+
+    private static final long IDLE_WAIT = 10;          // milliseconds the writer waits when the buffer is empty
+    private static final long REPEAT_INTERVAL = 5000;  // milliseconds between two copies of a repeated message
+
+    private static class Entry {
+        private long time;
+        private LogLevel level;
+        private String thread;
+        private String message;
+        private Object arg1;
+        private Object arg2;
+        private long value;
+    }
+
+    private static class Repeat {
+        private long writtenAt;  // when the message was last written
+        private int suppressed;  // copies left out since then
+        private String line;     // the last copy, without its time, for reporting copies left out
+    }
+
+    private static final Entry[] entries = new Entry[CAPACITY];
+    // the sequence number of the entry each slot holds; a slot can be read once it holds the expected sequence
+    private static final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong claimed = new AtomicLong(); // the next sequence number to hand out
+    private static volatile long written = 0;                    // the next sequence number the writer reads
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile int minimumLevel = LogLevel.INFO.ordinal();
+    private static volatile Writer output = new TribotConsoleWriter();
+
+    // only used by the writer thread
+    private static final Map<String, Repeat> repeats = new HashMap<>();
+    private static final StringBuilder line = new StringBuilder();
+    private static long reportedDropped = 0;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            entries[i] = new Entry();
+            published.set(i, -1);
+        }
+
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeEntries();
+            }
+        }, "mining-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static void setLevel(LogLevel level) {
+        minimumLevel = level.ordinal();
+    }
+
+    public static boolean isEnabled(LogLevel level) {
+        return level.ordinal() >= minimumLevel;
+    }
+
+    /**
+     * Sends the log to a writer instead of the script console, starting with the entries not yet written.
+     */
+    public static void setOutput(Writer writer) {
+        output = writer;
+    }
+
+    /**
+     * Sends the log to the standard output, e.g. for the simulators and tools that run without a client.
+     */
+    public static void setStandardOutput() {
+        setOutput(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return The number of entries dropped so far because the ring buffer was full.
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public static void debug(String message) {
+        log(LogLevel.DEBUG, message, null, null, NO_VALUE);
+    }
+
+    public static void info(String message) {
+        log(LogLevel.INFO, message, null, null, NO_VALUE);
+    }
+
+    public static void warn(String message) {
+        log(LogLevel.WARN, message, null, null, NO_VALUE);
+    }
+
+    public static void error(String message) {
+        log(LogLevel.ERROR, message, null, null, NO_VALUE);
+    }
+
+    public static void log(LogLevel level, String message, Object arg) {
+        log(level, message, arg, null, NO_VALUE);
+    }
+
+    public static void log(LogLevel level, String message, Object arg1, Object arg2) {
+        log(level, message, arg1, arg2, NO_VALUE);
+    }
+
+    public static void info(String message, Object arg1, Object arg2, long value) {
+        log(LogLevel.INFO, message, arg1, arg2, value);
+    }
+
+    /**
+     * Adds an entry to the ring buffer, or drops it if the buffer is full. The arguments are formatted by the writer
+     * thread, so they should not be changed after being logged.
+     *
+     * @param value: a number describing the entry (e.g. a duration), or Long.MIN_VALUE if there is none
+     */
+    public static void log(LogLevel level, String message, Object arg1, Object arg2, long value) {
+        if (level.ordinal() < minimumLevel) return;
+
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - written >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) (sequence & MASK);
+        Entry entry = entries[index];
+        entry.time = System.currentTimeMillis();
+        entry.level = level;
+        entry.thread = Thread.currentThread().getName();
+        entry.message = message;
+        entry.arg1 = arg1;
+        entry.arg2 = arg2;
+        entry.value = value;
+        published.lazySet(index, sequence);
+    }
+
+    /**
+     * Waits until every entry logged so far has been written, then flushes the output.
+     */
+    public static void flush() {
+        long target = claimed.get();
+        while (written < target) {
+            LockSupport.parkNanos(1000000);
+        }
+        try {
+            output.flush();
+        } catch (IOException e) {
+            // nowhere left to report it
+        }
+    }
+
+    /**
+     * The writer thread's loop: writes every published entry, then flushes the output and waits for more.
+     */
+    private static void writeEntries() {
+        while (true) {
+            Writer writer = output;
+            long sequence = written;
+            int index = (int) (sequence & MASK);
+            if (published.get(index) != sequence) {
+                try {
+                    reportDropped(writer);
+                    writer.flush();
+                } catch (IOException e) {
+                    // the output is unusable; entries keep being drained so logging threads are not stalled
+                }
+                LockSupport.parkNanos(IDLE_WAIT * 1000000);
+                continue;
+            }
+
+            Entry entry = entries[index];
+            try {
+                write(writer, entry);
+            } catch (IOException | RuntimeException e) {
+                // the entry is lost, but the ones after it are still written
+            }
+            entry.arg1 = null;
+            entry.arg2 = null;
+            written = sequence + 1;
+        }
+    }
+
+    private static void write(Writer writer, Entry entry) throws IOException {
+        line.setLength(0);
+        line.append(",\"level\":\"").append(entry.level).append("\",\"thread\":");
+        appendString(line, entry.thread);
+        line.append(",\"message\":");
+        appendString(line, String.valueOf(entry.message));
+        if (entry.arg1 != null || entry.arg2 != null) {
+            line.append(",\"args\":[");
+            appendString(line, String.valueOf(entry.arg1));
+            if (entry.arg2 != null) {
+                line.append(',');
+                appendString(line, String.valueOf(entry.arg2));
+            }
+            line.append(']');
+        }
+        if (entry.value != NO_VALUE) line.append(",\"value\":").append(entry.value);
+
+        String key = line.toString();
+        Repeat repeat = repeats.get(key);
+        if (repeat != null && entry.time - repeat.writtenAt < REPEAT_INTERVAL) {
+            repeat.suppressed++;
+            return;
+        }
+
+        int suppressed = repeat == null ? 0 : repeat.suppressed;
+        if (repeat == null) {
+            if (repeats.size() >= 1024) pruneRepeats(writer, entry.time);
+            repeat = new Repeat();
+            repeat.line = key;
+            repeats.put(key, repeat);
+        }
+        repeat.writtenAt = entry.time;
+        repeat.suppressed = 0;
+
+        writeLine(writer, entry.time, key, suppressed);
+    }
+
+    /**
+     * Forgets the messages that have not been repeated within the repeat interval, writing how many copies of them were
+     * left out.
+     */
+    private static void pruneRepeats(Writer writer, long now) throws IOException {
+        Iterator<Repeat> iterator = repeats.values().iterator();
+        while (iterator.hasNext()) {
+            Repeat repeat = iterator.next();
+            if (now - repeat.writtenAt < REPEAT_INTERVAL) continue;
+
+            if (repeat.suppressed > 0) writeLine(writer, now, repeat.line, repeat.suppressed);
+            iterator.remove();
+        }
+    }
+
+    private static void reportDropped(Writer writer) throws IOException {
+        long droppedCount = dropped.get();
+        if (droppedCount == reportedDropped) return;
+
+        writeLine(writer, System.currentTimeMillis(), ",\"level\":\"WARN\",\"thread\":\"mining-log\","
+                + "\"message\":\"Log entries dropped\",\"value\":" + (droppedCount - reportedDropped), 0);
+        reportedDropped = droppedCount;
+    }
+
+    private static void writeLine(Writer writer, long time, String fields, int repeated) throws IOException {
+        writer.write("{\"time\":");
+        writer.write(Long.toString(time));
+        writer.write(fields);
+        if (repeated > 0) {
+            writer.write(",\"repeated\":");
+            writer.write(Integer.toString(repeated));
+        }
+        writer.write("}\n");
+    }
+
+    private static void appendString(StringBuilder builder, String string) {
+        builder.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+    }
+
+}
@@ -0,0 +1,117 @@
+/**
+ * The MiningMetrics class records where a mining session spends its time: a {@link LatencyHistogram} of durations and
+ * a failure count for every {@link MiningPhase}, plus counters for ores, clicks and failed mine attempts. Durations are
+ * measured on the session's {@link GameClock}, so simulated sessions report simulated time. Every context has its own
+ * metrics (see {@link GameContext#metrics()}); {@link MetricsExporter} writes them out.
+ *
+ * Recording is lock-free and allocation-free, so the metrics can be left on.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class MiningMetrics {
+
+    private final GameClock clock;
+    private final SessionRecorder recorder;
+    private final long startTime;
+
+    private final LatencyHistogram[] durations = new LatencyHistogram[MiningPhase.values().length];
+    private final AtomicLongArray failures = new AtomicLongArray(MiningPhase.values().length);
+    private final AtomicLong ores = new AtomicLong();
+    private final AtomicLong failedMineAttempts = new AtomicLong();
+
+    public MiningMetrics(GameClock clock, SessionRecorder recorder) {
+        this.clock = clock;
+        this.recorder = recorder;
+        this.startTime = clock.currentTimeMillis();
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @return The current time, to be passed to {@link #record} once the phase is over.
+     */
+    public long start() {
+        return clock.currentTimeMillis();
+    }
+
+    /**
+     * Records a phase that started at the given time and is now over.
+     *
+     * @param succeeded: false if the phase failed, e.g. the walker gave up or the click missed
+     *
+     * @return succeeded, so a call can wrap the result it records.
+     */
+    public boolean record(MiningPhase phase, long startTime, boolean succeeded) {
+        long endTime = clock.currentTimeMillis();
+        durations[phase.ordinal()].record(endTime - startTime);
+        recorder.recordPhase(phase, startTime, endTime, succeeded);
+        if (!succeeded) failures.incrementAndGet(phase.ordinal());
+        return succeeded;
+    }
+
+    public void addOres(int count) {
+        ores.addAndGet(count);
+    }
+
+    /**
+     * Counts an attempt to mine a rock that ended without an ore, e.g. because another player depleted the rock first.
+     */
+    public void addFailedMineAttempt() {
+        failedMineAttempts.incrementAndGet();
+    }
+
+    public LatencyHistogram getDurations(MiningPhase phase) {
+        return durations[phase.ordinal()];
+    }
+
+    public long getFailures(MiningPhase phase) {
+        return failures.get(phase.ordinal());
+    }
+
+    public long getOres() {
+        return ores.get();
+    }
+
+    /**
+     * @return The number of ores mined per hour since the metrics were created.
+     */
+    public double getOresPerHour() {
+        long elapsed = clock.currentTimeMillis() - startTime;
+        return elapsed <= 0 ? 0 : ores.get() * 3600000.0 / elapsed;
+    }
+
+    public long getFailedMineAttempts() {
+        return failedMineAttempts.get();
+    }
+
+    /**
+     * @return The number of mine attempts per hour that ended without an ore, since the metrics were created.
+     */
+    public double getFailedMineAttemptsPerHour() {
+        long elapsed = clock.currentTimeMillis() - startTime;
+        return elapsed <= 0 ? 0 : failedMineAttempts.get() * 3600000.0 / elapsed;
+    }
+
+    public long getClicks() {
+        return durations[MiningPhase.CLICK.ordinal()].getCount();
+    }
+
+    /**
+     * @return The fraction of clicks on rocks that did not get the character mining, because the click itself failed
+     * or no mining animation followed it, between 0 and 1.
+     */
+    public double getFailedClickRate() {
+        long clicks = getClicks();
+        long failedClicks = failures.get(MiningPhase.CLICK.ordinal())
+                + failures.get(MiningPhase.WAIT_FOR_ANIMATION.ordinal());
+        return clicks == 0 ? 0 : (double) failedClicks / clicks;
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * The MiningOrchestrator class drives many mining sessions from one JVM. Each session runs as a series of steps (see
+ * {@link MiningSession#step}); between two steps a session holds no thread at all, its next step is only a timer on a
+ * shared scheduler. Steps run on virtual threads when the JVM has them (Java 21+), so the sleeps and waits inside a
+ * step only park a virtual thread; on older JVMs they run on a fixed pool of platform threads.
+ *
+ * Scheduling is fair: a session never has more than one step queued or running, and ready steps run in the order
+ * they became ready, so a busy session cannot starve the others.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MiningOrchestrator {
+
+    private final ScheduledExecutorService scheduler; // only times the steps; never runs one
+    private final ExecutorService workers;            // runs the steps
+    private final boolean virtualThreads;
+
+    private static class ScheduledSession {
+        private final MiningSession session;
+        private final long stopAt; // session clock time at which the session stops
+        private final CompletableFuture<Integer> completion = new CompletableFuture<>();
+        private int steps = 0;
+
+        private ScheduledSession(MiningSession session, long stopAt) {
+            this.session = session;
+            this.stopAt = stopAt;
+        }
+    }
+
+    /**
+     * @param platformThreads: the number of threads running steps if the JVM has no virtual threads
+     * */
+    public MiningOrchestrator(int platformThreads) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(createThreadFactory("mining-scheduler"));
+
+        ExecutorService virtualThreadExecutor = createVirtualThreadExecutor();
+        virtualThreads = virtualThreadExecutor != null;
+        workers = virtualThreads ? virtualThreadExecutor
+                : Executors.newFixedThreadPool(platformThreads, createThreadFactory("mining-session"));
+    }
+
+    /**
+     * @return An executor starting a virtual thread per task, or null if the JVM has no virtual threads.
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory createThreadFactory(String name) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Starts running a session's steps until the given amount of time has passed on the session's clock. Cancelling
+     * the returned future stops the session after its current step.
+     *
+     * @param runTime: the time to run the session for in milliseconds, or Long.MAX_VALUE to run it until cancelled
+     *
+     * @return A future completed with the number of steps run once the session stops, or completed exceptionally if
+     * a step failed.
+     */
+    public CompletableFuture<Integer> submit(MiningSession session, long runTime) {
+        long now = session.getContext().clock().currentTimeMillis();
+        long stopAt = runTime > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + runTime;
+
+        ScheduledSession scheduledSession = new ScheduledSession(session, stopAt);
+        schedule(scheduledSession, 0);
+        return scheduledSession.completion;
+    }
+
+    /**
+     * Queues a session's next step to run once the delay has passed.
+     */
+    private void schedule(final ScheduledSession scheduledSession, long delay) {
+        final Runnable step = new Runnable() {
+            @Override
+            public void run() {
+                runStep(scheduledSession);
+            }
+        };
+
+        try {
+            if (delay <= 0) {
+                workers.execute(step);
+            } else {
+                scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            workers.execute(step);
+                        } catch (RejectedExecutionException e) {
+                            scheduledSession.completion.completeExceptionally(e);
+                        }
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            scheduledSession.completion.completeExceptionally(e);
+        }
+    }
+
+    private void runStep(ScheduledSession scheduledSession) {
+        if (scheduledSession.completion.isDone()) return;
+
+        GameClock clock = scheduledSession.session.getContext().clock();
+        try {
+            if (clock.currentTimeMillis() >= scheduledSession.stopAt) {
+                scheduledSession.completion.complete(scheduledSession.steps);
+                return;
+            }
+
+            long delay = scheduledSession.session.step();
+            scheduledSession.steps++;
+            schedule(scheduledSession, clock.passTime(delay));
+        } catch (RuntimeException e) {
+            MiningLog.log(LogLevel.ERROR, "Mining session stopped", e);
+            scheduledSession.completion.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stops scheduling steps. Steps that are already running are allowed to finish.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdown();
+    }
+
+}
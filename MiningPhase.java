@@ -0,0 +1,23 @@
+/**
+ * The timed phases of a mining cycle, recorded by {@link MiningMetrics}.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public enum MiningPhase {
+
+    WALK_TO_MINE,        // walking to the mine entrance until the character is in the mine
+    WALK_TO_ROCK,        // walking to a rock that is not on the screen
+    WAIT_FOR_ROCK,       // waiting for the rock to be on the screen (isRockOnScreenAndMineable)
+    CLICK,               // clicking "Mine" on the rock
+    WAIT_FOR_ANIMATION,  // waiting for the mining animation (isCharacterMining)
+    WAIT_FOR_DEPLETION,  // waiting for the rock to lose its ore (isRockDoneBeingMined)
+    DROP,                // dropping a full inventory of ores
+    WALK_TO_BANK,        // walking to the bank
+    BANK,                // opening the bank, depositing and closing it
+    HOP,                 // hopping to another world until the player is logged in to it
+    DROP_ONE             // dropping one ore while a rock is mined (power-mining); last, as recordings store ordinals
+
+}
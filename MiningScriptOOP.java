@@ -1,40 +1,49 @@
 /**
  * This script allows characters to mine rocks at user-specified predetermined positions or within a user-specified
  * range from their character. The script also allows the user to choose whether the character should bank or drop
- * their mined ores when their inventory is full.
+ * their mined ores when their inventory is full. The mining loop itself lives in {@link MiningSession}.
  *
  * @author Ryan Tran
  */
 
 package scripts.mining;
 
-import org.tribot.api.General;
-import org.tribot.api.Timing;
-import org.tribot.api2007.Inventory;
-import org.tribot.api2007.Objects;
-import org.tribot.api2007.Player;
 import org.tribot.api2007.types.RSArea;
-import org.tribot.api2007.types.RSObject;
 import org.tribot.api2007.types.RSTile;
 import org.tribot.script.Script;
-import scripts.CustomBanking;
 import scripts.dax_api.api_lib.DaxWalker;
 import scripts.dax_api.api_lib.models.DaxCredentials;
 import scripts.dax_api.api_lib.models.DaxCredentialsProvider;
 
-import java.util.function.BooleanSupplier;
+import java.io.File;
+import java.io.IOException;
 
 public class MiningScriptOOP extends Script {
 
     // Variables to Change ---------------------------------------------------------------------------------------------
     // if true, character will bank; if set, character will drop
     private boolean banking = true;
+    // if true and not banking, ores are dropped one by one while the next rock is mined, so the inventory never fills
+    private boolean powerMining = true;
 
     // desired rock type to mine
     private Rock rockType = Rock.TIN;
     // desired rock type to mine in string format
     private String rockTypeStr = "Tin ore";
 
+    // FOR MINING SEVERAL ROCK TYPES (overrides rockType): each with the XP and GP value of its ore and its level
+    private RockTarget[] rockTargets = null;
+    // private RockTarget[] rockTargets = new RockTarget[] {new RockTarget(Rock.TIN, "Tin ore", 17.5, 15, 1),
+    //         new RockTarget(Rock.COPPER, "Copper ore", 17.5, 10, 1),
+    //         new RockTarget(Rock.IRON, "Iron ore", 35, 90, 15)}
+    // the XP one GP of ore is worth when choosing between rock types (only when banking)
+    private double gpWeight = 0.1;
+
+    // WORLD HOPPING (hop when the current world yields fewer ores/hour, counting only the time spent mining)
+    // worlds to hop between, e.g. new int[] {301, 308, 316}, or null to stay on the current world
+    private int[] hopWorlds = null;
+    private double hopThreshold = 600;
+
     // FOR MINING NEAREST ROCKS
     private int miningRange = 5;
 
@@ -43,15 +52,45 @@ public class MiningScriptOOP extends Script {
     // FOR MINING SPECIFIC ROCKS
     private static RSTile[] rockPositions = null;
     // private static RSTile[] rockPositions = new RSTile[] {new RSTile(3223, 3146, 0), new RSTile(3222, 3147, 0)}
+    // true to mine rockPositions from the one tile next to all of them (e.g. 2 or 3 rocks around a tile), never walking
+    private boolean stationary = false;
+
+    // WAITS (in milliseconds; see MiningTuner for how they compare)
+    // pause before moving the cursor to the next rock while one is mined, random between min and max
+    private int hoverPauseMin = 250;
+    private int hoverPauseMax = 400;
+    // longest a rock is mined before it is given up on, random between min and max
+    private int depletionTimeoutMin = 35000;
+    private int depletionTimeoutMax = 40000;
 
     // area to mine -> Lumbridge Swamp Mine
     private final RSArea MINE = new RSArea(new RSTile(3219, 3144, 0), new RSTile(3230, 3153, 0));
     private final RSArea MINE_ENTRANCE = new RSArea(new RSTile(3224, 3149, 0), new RSTile(3228, 3150, 0));
-    // End of Variables to Change --------------------------------------------------------------------------------------
 
-    private int rockPositionsLength = 0;
-    private RSObject[] predeterminedRocks = null;
-    private RSObject[] sortedPredeterminedRocks = null;
+    // METRICS (phase timings, ores/hour and failed clicks, in the Prometheus text format)
+    // file to rewrite with the metrics every 10 seconds, or null for none
+    private String metricsFile = null;
+    // port to serve the metrics on at http://localhost:port/metrics, or 0 for none
+    private int metricsPort = 0;
+
+    // ROUTES (the walks between the mine and the bank, reused on later trips)
+    // file to save the routes to so they outlive the script, or null to keep them in memory only
+    private String routeFile = null;
+
+    // MINE PROFILE (the mine's area and rocks, found by scanning around the character instead of set above)
+    // file to load the profile from, or to save it to once the mine has been scanned;
+    // null to use MINE and rockPositions
+    private String mineProfileFile = null;
+
+    // RECORDING (what the script sees and does, in a binary file SessionReplay can read back)
+    // file to record into, or null for none; the last recordingCapacity records are kept (32 bytes each)
+    private String recordingFile = null;
+    private int recordingCapacity = 1 << 20;
+
+    // SIBLING BOTS (several accounts mining the same mine from this computer)
+    // file the bots share to tell each other which rocks they are about to mine, or null for none
+    private String rockBoardFile = null;
+    // End of Variables to Change --------------------------------------------------------------------------------------
 
     @Override
     public void run() {
@@ -62,161 +101,98 @@ public class MiningScriptOOP extends Script {
             }
         });
 
-        General.println("Starting OO Script v1.0");
+        MiningLog.info("Starting OO Script v1.0");
         /*start = System.currentTimeMillis();*/
 
-        if (rockPositions != null) {
-            rockPositionsLength = rockPositions.length;
-            predeterminedRocks = new RSObject[rockPositionsLength];
+        MiningConfig config = new MiningConfig(MINE, MINE_ENTRANCE);
+        config.setBanking(banking);
+        config.setPowerMining(powerMining);
+        config.setRockType(rockType, rockTypeStr);
+        if (rockTargets != null) config.setTargets(rockTargets);
+        config.setGpWeight(gpWeight);
+        config.setMiningRange(miningRange);
+        config.setRockPositions(rockPositions);
+        config.setStationary(stationary);
+        config.setHoverPause(hoverPauseMin, hoverPauseMax);
+        config.setDepletionTimeout(depletionTimeoutMin, depletionTimeoutMax);
+        config.setHopWorlds(hopWorlds, hopThreshold);
+        if (routeFile != null) config.setRouteCache(new RouteCache(new File(routeFile)));
+
+        GameContext context = GameContext.tribot();
+        if (recordingFile != null) {
+            try {
+                context.recorder().start(new File(recordingFile), recordingCapacity);
+            } catch (IOException e) {
+                MiningLog.log(LogLevel.WARN, "Unable to record", recordingFile, e);
+            }
         }
-
-        while (true) {
-            General.sleep(100);
-
-            if (isInMine()) {
-                General.println("In Mine");
-                if (Inventory.isFull()) {
-                    if (banking) {
-                        General.println("Inventory Full: Banking");
-                        DaxWalker.walkToBank();
-                        CustomBanking.bank();
-                        General.sleep(50, 100);
-                    } else {
-                        General.println("Inventory Full: Dropping");
-                        Inventory.drop(new String[]{rockTypeStr});
-                        General.sleep(50, 100);
-                    }
-                } else {
-                    if (rockPositions == null) {
-                        General.println("Mining Nearest Rock");
-                        mineNearestRock();
-                    }
-                    else {
-                        if (rockPositionsLength == 1) {
-                            General.println("Mining Single Predetermined Rock");
-                            mineSinglePredeterminedRock();
-                        } else {
-                            General.println("Mining Nearest Predetermined Rock");
-                            mineNearestPredeterminedRock();
-                        }
-                    }
-                }
-            } else if (CustomBanking.isInBank()) {
-                General.println("In Bank");
-                if (Inventory.getAll().length > 0) {
-                    General.println("Items in Inventory: Banking");
-                    CustomBanking.bank();
-                    General.sleep(50, 100);
-                } else {
-                    General.println("Walking to Mine");
-                    DaxWalker.walkTo(MINE_ENTRANCE.getRandomTile());
-                    walkToMine();
-                    General.sleep(50, 100);
-                }
-            } else {
-                General.println("Neither in Mine or in Bank");
-                if (Inventory.isFull() && banking) {
-                    General.println("Inventory Full: Banking");
-                    DaxWalker.walkToBank();
-                    CustomBanking.bank();
-                    General.sleep(50, 100);
-                } else {
-                    General.println("Walking to Mine");
-                    walkToMine();
-                    General.sleep(50, 100);
-                }
+        if (rockBoardFile != null) {
+            try {
+                context.board().join(new File(rockBoardFile));
+            } catch (IOException e) {
+                MiningLog.log(LogLevel.WARN, "Unable to join the rock board", rockBoardFile, e);
             }
         }
-    }
-
-    /**
-     * Checks if the player is located within the mine.
-     *
-     * @return True if the player is in the mine, false otherwise.
-     */
-    public boolean isInMine() {
-        if (!MINE.contains(Player.getPosition())) return false;
-        return true;
-    }
-
-    /**
-     * Generates a path to the mine and walks the player there until they reach it.
-     *
-     * @return True if the player is in the mine within 10-12 seconds of walking, false otherwise.
-     */
-    public boolean walkToMine() {
-        //if (!WebWalking.walkTo(tilesSurroundingClayRock[0 + (int)(Math.random() * ((2 - 0) + 1))])) return false;
-        if (!DaxWalker.walkTo(MINE_ENTRANCE.getRandomTile())) return false;
-
-        BooleanSupplier atMine = new BooleanSupplier() {
-            @Override
-            public boolean getAsBoolean() {
-                General.sleep(200, 300);
-                return isInMine();
+        if (mineProfileFile != null) {
+            MineProfile profile = loadMineProfile(new File(mineProfileFile), context, config);
+            if (profile != null) profile.applyTo(config);
+        }
+        MiningSession session = new MiningSession(config, context);
+
+        MetricsExporter exporter = new MetricsExporter();
+        exporter.register("script", context.metrics());
+        if (metricsFile != null) exporter.startFileExport(new File(metricsFile), 10000);
+        if (metricsPort > 0) {
+            try {
+                exporter.startHttpServer(metricsPort);
+            } catch (IOException e) {
+                MiningLog.log(LogLevel.WARN, "Unable to serve metrics", metricsPort, e);
             }
-        };
-        return Timing.waitCondition(atMine, General.random(10000, 12000));
-    }
-
-    /**
-     * Mines the nearest rock.
-     *
-     * @return True if the rock is successfully mined; false otherwise.
-     */
-    public boolean mineNearestRock() {
-        RSRock rock = new RSRock();
-        if(!rock.setNearestRock(rockType, miningRange)) return false;
-
-        if (!rock.mine()) return false;
-
-        return true;
-    }
-
-    /**
-     * Mines a single, predetermined rock.
-     *
-     * @return True if the rock is successfully mined; false otherwise.
-     */
-    public boolean mineSinglePredeterminedRock() {
-        predeterminedRocks = createRocks(rockPositions);
-
-        RSRock rock = new RSRock();
-        if (!rock.setSinglePredeterminedRock(rockType, predeterminedRocks[0].getPosition())) return false;
-
-        if (!rock.mine()) return false;
+        }
 
-        return true;
+        while (true) {
+            context.clock().sleep(session.step());
+        }
     }
 
     /**
-     * Mines the nearest rock out of a set of predetermined rocks.
+     * Loads the mine profile from a file, or discovers it around the character if there is no file yet, it cannot be
+     * read or it was found for other rock types than the targets. Discovery only finds a mine if the character is at
+     * one, next to target rocks (the script may start anywhere, e.g. in the bank), and a profile is only saved if
+     * every rock of its cluster could be classified, so a later run never reuses a bad scan.
      *
-     * @return True if the rock is successfully mined; false otherwise.
+     * @return The profile, or null if there is no file and no target rock around the character.
      */
-    public boolean mineNearestPredeterminedRock() {
-        sortedPredeterminedRocks = Objects.sortByDistance(Player.getPosition(), createRocks(rockPositions));
-
-        RSRock rock = new RSRock();
-        if(!rock.setNearestPredeterminedRock(rockType, sortedPredeterminedRocks)) return false;
-
-        if (!rock.mine()) return false;
-
-        return true;
-    }
-
-    public static RSObject[] createRocks(RSTile[] rockPositions) {
-        for (int i = 0; i < rockPositionsLength; i++) {
-            predeterminedRocks[i] = Objects.getAt(rockPositions[i])[0];
+    private static MineProfile loadMineProfile(File file, GameContext context, MiningConfig config) {
+        if (file.exists()) {
+            try {
+                MineProfile profile = MineProfile.load(file);
+                if (profile.isFor(config.getTargets())) return profile;
+                MiningLog.log(LogLevel.INFO, "Mine profile is for other rocks: discovering the mine again", file);
+            } catch (IOException e) {
+                MiningLog.log(LogLevel.WARN, "Unable to load mine profile", file, e);
+            }
         }
-        return predeterminedRocks;
-    }
-
-    public static RSTile[] getRockPositions() {
-        return rockPositions;
-    }
 
-    public static RSObject[] getPredeterminedRocks() {
-        return predeterminedRocks;
+        RSTile position = context.world().getPlayerPosition();
+        MineDiscovery discovery = new MineDiscovery(config.getTargets());
+        if (!discovery.scanMine(context)) {
+            MiningLog.log(LogLevel.WARN, "No rocks to mine around the character: mining the configured mine; restart "
+                    + "the script in the mine to discover it", position);
+            return null;
+        }
+        MineProfile profile = discovery.createProfile(position);
+        MiningLog.log(LogLevel.INFO, "Discovered mine", profile.getRockPositions().length, profile.getMine());
+        if (!discovery.isComplete()) {
+            MiningLog.info("Some rocks were depleted during the scan: the mine profile is not saved");
+            return profile;
+        }
+        try {
+            profile.save(file);
+        } catch (IOException e) {
+            MiningLog.log(LogLevel.WARN, "Unable to save mine profile", file, e);
+        }
+        return profile;
     }
 
 }
@@ -0,0 +1,472 @@
+/**
+ * The MiningSession class contains the mining loop of the script: walking to the mine, mining rocks at predetermined
+ * positions or within a range of the character, and banking or dropping ores when the inventory is full. The loop is
+ * a state machine (see {@link MiningState}) whose steps only make the checks that can end the current state. A session
+ * owns its config, its {@link GameContext} and all of its state, so many sessions can run in one JVM (see
+ * {@link MiningOrchestrator}) and a session can be driven by the TRiBot script or by a {@link SimulatedGame}.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSArea;
+import org.tribot.api2007.types.RSTile;
+
+import java.util.function.BooleanSupplier;
+
+public class MiningSession {
+
+    public static final long STEP_DELAY = 100; // milliseconds between two steps of the mining loop
+
+    private static final ThreadLocal<MiningSession> boundSession = new ThreadLocal<>();
+
+    private final MiningConfig config;
+    private final GameContext context;
+
+    private final RSTile[] rockPositions;
+    private final ObservedRock[] predeterminedRocks;
+    private final MineIndex mineIndex;
+    private final RSTile standingTile;  // the tile every rock is mined from when mining stationary, or null
+    private final TripWalker tripWalker;
+    private final RockTargets targets;
+    private final WorldSelector worlds;   // null if the session stays on one world
+    private final CursorPipeline cursor;  // the click on the next rock, readied while the current one is mined
+
+    private MiningState state = null;   // null until the first step determines it
+    private long stateEnteredAt = 0;
+    private RSRock selectedRock = null; // the rock chosen in SELECT_ROCK and mined in MINING
+    private ObservedRock[] candidateRocks = null; // the rocks the last selection chose from, for the recorder
+    private boolean candidatesScored = false;     // false if the last selection chose without scoring its candidates
+    private int oresDroppedWhileMining = 0; // ores power-mining has dropped since MINING was entered
+    private long bankTripStartedAt = -1;    // when the current bank trip started, or -1 if there is none
+    private int bankTripItems = 0;          // the items in the inventory when the current bank trip started
+    private final long[] timeInState = new long[MiningState.values().length];
+    private final int[] stateEntries = new int[MiningState.values().length];
+
+    public MiningSession(MiningConfig config, GameContext context) {
+        this.config = config;
+        this.context = context;
+
+        rockPositions = config.getRockPositions();
+        predeterminedRocks = rockPositions == null ? null : new ObservedRock[rockPositions.length];
+        mineIndex = new MineIndex(config.getMine(), rockPositions);
+        standingTile = config.isStationary() ? mineIndex.getStandingTile() : null;
+        if (config.isStationary() && standingTile == null) {
+            MiningLog.warn("No tile is next to every rock: mining them without standing still");
+        }
+        tripWalker = new TripWalker(config.getRouteCache(), config.getMine(), mineIndex);
+        targets = new RockTargets(config, context.contention(), context.board());
+        targets.recordTo(context.recorder(), context.clock().currentTimeMillis());
+        cursor = new CursorPipeline(context.mouse());
+        worlds = config.getHopWorlds() == null ? null
+                : new WorldSelector(config.getHopWorlds(), config.getHopThreshold());
+        if (worlds != null) worlds.enter(context.world().getWorld(), context.clock().currentTimeMillis());
+        context.board().setWorld(context.world().getWorld());
+    }
+
+    /**
+     * @return The session whose step is running on the calling thread.
+     */
+    public static MiningSession current() {
+        MiningSession session = boundSession.get();
+        if (session == null) throw new IllegalStateException("No mining session is running on this thread");
+        return session;
+    }
+
+    /**
+     * Runs one step of the mining loop with this session's context bound to the calling thread: the action of the
+     * current state, followed by a transition if the action's outcome calls for one. Steps of the same session must
+     * not run concurrently, but consecutive steps may run on different threads.
+     *
+     * @return The number of milliseconds to wait before the next step; 0 after a transition, so the new state's action
+     * runs right away.
+     */
+    public long step() {
+        GameContext.bind(context);
+        boundSession.set(this);
+        try {
+            if (state == null) {
+                transitionTo(determineState());
+            }
+
+            MiningState next = runState();
+            if (next == state) return getStepDelay();
+
+            transitionTo(next);
+            return 0;
+        } finally {
+            boundSession.remove();
+            GameContext.unbind();
+        }
+    }
+
+    /**
+     * @return The milliseconds to wait before running the current state's action again. A rock is selected again
+     * once the next tick's changes can be seen (no rock changes before then); other states are polled every
+     * STEP_DELAY.
+     */
+    private long getStepDelay() {
+        if (state == MiningState.SELECT_ROCK) return context.ticks().getDelayUntilNextTick(STEP_DELAY);
+        return STEP_DELAY;
+    }
+
+    /**
+     * Determines the state from scratch, by checking where the character is and what their inventory holds. Only
+     * used when a session starts and when a state's action finds the character somewhere it did not expect.
+     */
+    private MiningState determineState() {
+        boolean banking = config.isBanking();
+
+        if (isInMine()) {
+            if (!context.inventory().isFull()) return MiningState.SELECT_ROCK;
+            return banking ? MiningState.WALK_TO_BANK : MiningState.DROPPING;
+        }
+        if (mineIndex.isInBank(context.snapshot().getPlayerPosition(), context.bank())) {
+            return context.inventory().getItemCount() > 0 ? MiningState.BANKING : MiningState.WALK_TO_MINE;
+        }
+        return context.inventory().isFull() && banking ? MiningState.WALK_TO_BANK : MiningState.WALK_TO_MINE;
+    }
+
+    /**
+     * Runs the action of the current state. Only the checks that can end the current state are made.
+     *
+     * @return The state to be in after the action.
+     */
+    private MiningState runState() {
+        MiningMetrics metrics = context.metrics();
+        long start = metrics.start();
+
+        switch (state) {
+            case WALK_TO_MINE:
+                if (!metrics.record(MiningPhase.WALK_TO_MINE, start, walkToMine())) {
+                    context.clock().sleep(50, 100);
+                    return determineState();
+                }
+                return MiningState.SELECT_ROCK;
+
+            case SELECT_ROCK:
+                if (context.inventory().isFull()) {
+                    return config.isBanking() ? MiningState.WALK_TO_BANK : MiningState.DROPPING;
+                }
+                if (!isInMine()) return MiningState.WALK_TO_MINE;
+                if (standingTile != null && !context.snapshot().getPlayerPosition().equals(standingTile)) {
+                    metrics.record(MiningPhase.WALK_TO_ROCK, start, context.walker().walkStraightTo(standingTile));
+                    return MiningState.SELECT_ROCK;
+                }
+                if (worlds != null && worlds.shouldHop(context.clock().currentTimeMillis())) {
+                    return MiningState.HOPPING;
+                }
+
+                selectedRock = selectRock();
+                if (selectedRock != null && !context.board().claim(selectedRock.getRock().getPackedTile())) {
+                    // a sibling bot claimed the rock since it was chosen
+                    selectedRock = null;
+                }
+                if (selectedRock != null) recordSelection();
+                return selectedRock != null ? MiningState.MINING : MiningState.SELECT_ROCK;
+
+            case MINING:
+                int oresBefore = context.inventory().getCount(targets.getOreNames());
+                oresDroppedWhileMining = 0;
+                selectedRock.mine();
+                int oresAfter = context.inventory().getCount(targets.getOreNames()) + oresDroppedWhileMining;
+                if (oresAfter > oresBefore) {
+                    metrics.addOres(oresAfter - oresBefore);
+                    if (worlds != null) worlds.addOres(oresAfter - oresBefore, context.clock().currentTimeMillis());
+                } else {
+                    metrics.addFailedMineAttempt();
+                }
+                return MiningState.SELECT_ROCK;
+
+            case DROPPING:
+                context.inventory().drop(targets.getOreNames());
+                metrics.record(MiningPhase.DROP, start, true);
+                context.clock().sleep(50, 100);
+                return context.inventory().isFull() ? MiningState.DROPPING : MiningState.SELECT_ROCK;
+
+            case WALK_TO_BANK:
+                if (!metrics.record(MiningPhase.WALK_TO_BANK, start, tripWalker.walkToBank())) {
+                    return MiningState.WALK_TO_BANK;
+                }
+                return MiningState.BANKING;
+
+            case BANKING:
+                if (metrics.record(MiningPhase.BANK, start, BankingHelper.bank())) {
+                    mineIndex.addBankTile(context.snapshot().getPlayerPosition());
+                }
+                context.clock().sleep(50, 100);
+                if (context.inventory().getItemCount() == 0) {
+                    if (bankTripStartedAt >= 0) {
+                        context.recorder().recordBankTrip(bankTripStartedAt, context.clock().currentTimeMillis(),
+                                bankTripItems);
+                        bankTripStartedAt = -1;
+                    }
+                    return MiningState.WALK_TO_MINE;
+                }
+                if (!mineIndex.isInBank(context.snapshot().getPlayerPosition(), context.bank())) {
+                    return MiningState.WALK_TO_BANK;
+                }
+                return MiningState.BANKING;
+
+            case HOPPING:
+                int world = worlds.getNextWorld();
+                boolean hopped = metrics.record(MiningPhase.HOP, start, context.world().hopTo(world));
+                worlds.onHop(world, hopped, context.clock().currentTimeMillis());
+                MiningLog.log(LogLevel.INFO, "Hopped to world", world, hopped);
+                if (hopped) forgetWorld();
+                return determineState();
+
+            default:
+                throw new IllegalStateException("Unknown state " + state);
+        }
+    }
+
+    /**
+     * Leaves the current state and enters the next one, running their exit and entry actions.
+     */
+    private void transitionTo(MiningState next) {
+        long now = context.clock().currentTimeMillis();
+
+        if (state != null) {
+            exit(state);
+            timeInState[state.ordinal()] += now - stateEnteredAt;
+            MiningLog.info("State changed", state, next, now - stateEnteredAt);
+        }
+
+        // only the time spent mining counts towards a world's ore rate
+        if (worlds != null) worlds.setMining(next == MiningState.SELECT_ROCK || next == MiningState.MINING, now);
+
+        state = next;
+        stateEnteredAt = now;
+        stateEntries[next.ordinal()]++;
+        enter(next);
+    }
+
+    private void enter(MiningState state) {
+        switch (state) {
+            case WALK_TO_MINE:
+                // the rocks seen before leaving the mine are of no use anymore
+                context.snapshot().invalidate();
+                break;
+            case WALK_TO_BANK:
+                // a trip that goes back to walking from the bank is still the same trip
+                if (bankTripStartedAt < 0) {
+                    bankTripStartedAt = context.clock().currentTimeMillis();
+                    bankTripItems = context.inventory().getItemCount();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void exit(MiningState state) {
+        switch (state) {
+            case MINING:
+                // a rock mined until it was depleted is no longer claimed; one given up on is left to the siblings
+                if (selectedRock != null) context.board().release(selectedRock.getRock().getPackedTile());
+                selectedRock = null;
+                break;
+            case BANKING:
+                if (context.bank().isBankScreenOpen()) context.bank().close();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Forgets what was seen of the world the player has just left: its rocks, the players mining them and its tick
+     * phase. The sibling bots' claims are looked up on the new world from now on.
+     */
+    private void forgetWorld() {
+        context.snapshot().invalidate();
+        context.respawns().forgetRocks();
+        context.contention().clear();
+        context.ticks().reset();
+        context.board().setWorld(context.world().getWorld());
+        cursor.clear();
+    }
+
+    /**
+     * Checks if the player is located within the mine.
+     *
+     * @return True if the player is in the mine, false otherwise.
+     */
+    public boolean isInMine() {
+        if (!mineIndex.isInMine(context.snapshot().getPlayerPosition())) return false;
+        return true;
+    }
+
+    /**
+     * Generates a path to the mine and walks the player there until they reach it.
+     *
+     * @return True if the player is in the mine within the adaptive timeout (10-12 seconds at most), false otherwise.
+     */
+    public boolean walkToMine() {
+        BooleanSupplier atMine = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return isInMine();
+            }
+        };
+        if (!tripWalker.walkToMine(getRandomTile(config.getMineEntrance()), atMine)) return false;
+
+        return context.waits().waitCondition(MiningPhase.WALK_TO_MINE, atMine, 10000, 12000, 200, 300);
+    }
+
+    /**
+     * Picks a random tile of an area using the current clock's random numbers, so simulated runs stay deterministic.
+     *
+     * @return A random tile within the area.
+     */
+    private RSTile getRandomTile(RSArea area) {
+        RSTile[] tiles = area.getAllTiles();
+        return tiles[context.clock().random(0, tiles.length - 1)];
+    }
+
+    /**
+     * Selects the rock to mine next: the best rock within the mining range (see {@link RockTargets}), the single
+     * predetermined rock or the best of the predetermined rocks. When mining stationary, the rock hovered while the
+     * last one was mined is selected without choosing again if it still has its ore. If no rock is mineable, gets
+     * ready for the one expected to respawn soonest.
+     *
+     * @return The selected rock, or null if no rock is mineable.
+     */
+    private RSRock selectRock() {
+        targets.setMiningLevel(context.world().getMiningLevel());
+        ObservedPlayer[] players = context.snapshot().findOtherPlayers(RockTargets.CONTENDER_DISTANCE);
+        ObservedRock[] rocks = rockPositions == null
+                ? context.snapshot().findNearestRocks(config.getMiningRange()) : createRocks();
+        if (worlds != null) observeWorld(rocks, players);
+
+        candidateRocks = rocks;
+        candidatesScored = false;
+
+        RSRock rock = new RSRock();
+        if (rockPositions == null) {
+            candidatesScored = true;
+            if (rock.setBestRock(targets, config.getMiningRange())) return rock;
+
+            MiningHelper.prepareForRespawn(rocks);
+        } else if (rockPositions.length == 1) {
+            if (rock.setSinglePredeterminedRock(targets, rockPositions[0])) return rock;
+        } else {
+            if (standingTile != null && cursor.getTile() != null
+                    && rock.setSinglePredeterminedRock(targets, cursor.getTile())) return rock;
+            candidatesScored = true;
+            if (rock.setBestPredeterminedRock(targets, rocks)) return rock;
+
+            MiningHelper.prepareForRespawn(rocks);
+        }
+        return null;
+    }
+
+    /**
+     * Records the selected rock and the rocks it was chosen from, with what the targeting knew of them (sibling claims
+     * and contention), so a replay can run the same choice (see {@link SessionReplay}).
+     */
+    private void recordSelection() {
+        SessionRecorder recorder = context.recorder();
+        if (!recorder.isEnabled()) return;
+
+        long now = context.clock().currentTimeMillis();
+        for (ObservedRock rock : candidateRocks) {
+            if (rock == null) continue;
+            recorder.recordCandidate(now, rock, context.board().isClaimedBySibling(rock.getPackedTile()),
+                    context.contention().getScore(rock.getPackedTile()));
+        }
+        recorder.recordSelect(now, selectedRock.getRock(), candidatesScored, targets.getMiningLevel());
+    }
+
+    /**
+     * Passes the target rocks with ore and the other players found this tick to the {@link WorldSelector}.
+     */
+    private void observeWorld(ObservedRock[] rocks, ObservedPlayer[] players) {
+        int availableRocks = 0;
+        for (ObservedRock rock : rocks) {
+            if (rock != null && targets.getTarget(rock) != null) availableRocks++;
+        }
+        worlds.observe(context.snapshot().getCurrentTick(), availableRocks, players.length,
+                context.clock().currentTimeMillis());
+    }
+
+    /**
+     * Refreshes the predetermined rocks from the current tick's snapshot. A rock that cannot be found is left null.
+     *
+     * @return The refreshed predetermined rocks.
+     */
+    public ObservedRock[] createRocks() {
+        WorldSnapshot snapshot = context.snapshot();
+
+        // one search covering every predetermined rock answers all of the tile lookups below
+        int coverDistance = mineIndex.getCoverDistance(snapshot.getPlayerPosition());
+        if (coverDistance > 0) snapshot.findNearestRocks(coverDistance);
+
+        for (int i = 0; i < rockPositions.length; i++) {
+            predeterminedRocks[i] = snapshot.getRockAt(rockPositions[i]);
+        }
+        return predeterminedRocks;
+    }
+
+    /**
+     * @return The state the session is in, or null if it has not run a step yet.
+     */
+    public MiningState getState() {
+        return state;
+    }
+
+    /**
+     * @return The milliseconds spent in a state so far, not counting the current visit to it.
+     */
+    public long getTimeInState(MiningState state) {
+        return timeInState[state.ordinal()];
+    }
+
+    /**
+     * @return The number of times a state was entered.
+     */
+    public int getStateEntries(MiningState state) {
+        return stateEntries[state.ordinal()];
+    }
+
+    public MiningConfig getConfig() {
+        return config;
+    }
+
+    public RockTargets getTargets() {
+        return targets;
+    }
+
+    public GameContext getContext() {
+        return context;
+    }
+
+    public ObservedRock[] getPredeterminedRocks() {
+        return predeterminedRocks;
+    }
+
+    public MineIndex getMineIndex() {
+        return mineIndex;
+    }
+
+    /**
+     * @return True if the rocks are mined from a single standing tile, without walking between them.
+     */
+    public boolean isStationary() {
+        return standingTile != null;
+    }
+
+    public CursorPipeline getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Counts an ore dropped while mining, so it is not mistaken for an ore that was never mined.
+     */
+    public void onOreDropped() {
+        oresDroppedWhileMining++;
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * This class runs a mining session against a {@link SimulatedGame} modelled on the Lumbridge Swamp mine and reports
+ * how it performed, so the mining logic can be measured and compared without a game client.
+ *
+ * With more than one session, every session mines its own simulated game and all of them are driven together by a
+ * {@link MiningOrchestrator}.
+ *
+ * Usage: MiningSimulation [hours of game time] [seed] [sessions] [other players in the mine]
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSArea;
+import org.tribot.api2007.types.RSTile;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+public class MiningSimulation {
+
+    // Lumbridge Swamp Mine, as configured in MiningScriptOOP
+    public static final RSArea MINE = new RSArea(new RSTile(3219, 3144, 0), new RSTile(3230, 3153, 0));
+    public static final RSArea MINE_ENTRANCE = new RSArea(new RSTile(3224, 3149, 0), new RSTile(3228, 3150, 0));
+    public static final RSTile BANK = new RSTile(3092, 3245, 0);
+
+    public static void main(String[] args) {
+        double hours = args.length > 0 ? Double.parseDouble(args[0]) : 1;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int otherPlayers = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        MiningLog.setStandardOutput();
+        // the simulated sessions log far faster than real ones; only problems are of interest here
+        MiningLog.setLevel(LogLevel.WARN);
+
+        if (sessions > 1) {
+            runOrchestrated(hours, seed, sessions, otherPlayers);
+            return;
+        }
+
+        SimulatedGame game = createLumbridgeSwamp(seed, otherPlayers);
+        MiningSession session = new MiningSession(new MiningConfig(MINE, MINE_ENTRANCE), new GameContext(game));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        int loops = run(game, session, (long) (hours * 3600000));
+        long cpuTime = threads.getCurrentThreadCpuTime() - cpuStart;
+
+        System.out.println(String.format("Simulated %.2f h: %d ores (%.1f/h), %d clicks, %d bank trips, %d loops",
+                hours, game.getOresMined(), game.getOresPerHour(), game.getClicks(), game.getBankTrips(), loops));
+        System.out.println(String.format("Failed mine attempts: %d (%.1f/h)",
+                session.getContext().metrics().getFailedMineAttempts(),
+                session.getContext().metrics().getFailedMineAttemptsPerHour()));
+        System.out.println(String.format("CPU: %.1f ms total, %.1f us/loop, %.1f us/ore", cpuTime / 1e6,
+                cpuTime / 1e3 / Math.max(loops, 1), cpuTime / 1e3 / Math.max(game.getOresMined(), 1)));
+        MetricsExporter exporter = new MetricsExporter();
+        exporter.register("simulation", session.getContext().metrics());
+        try {
+            exporter.writeTo(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (MiningState state : MiningState.values()) {
+            System.out.println(String.format("%-12s entered %5d times, %8.1f s total", state,
+                    session.getStateEntries(state), session.getTimeInState(state) / 1e3));
+        }
+    }
+
+    /**
+     * Runs several sessions, each on its own simulated game and seed, through one orchestrator and reports their
+     * combined results.
+     */
+    private static void runOrchestrated(double hours, long seed, int sessions, int otherPlayers) {
+        SimulatedGame[] games = new SimulatedGame[sessions];
+        CompletableFuture<?>[] results = new CompletableFuture<?>[sessions];
+
+        MiningOrchestrator orchestrator = new MiningOrchestrator(Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < sessions; i++) {
+                games[i] = createLumbridgeSwamp(seed + i, otherPlayers);
+                MiningSession session = new MiningSession(new MiningConfig(MINE, MINE_ENTRANCE),
+                        new GameContext(games[i]));
+                results[i] = orchestrator.submit(session, (long) (hours * 3600000));
+            }
+            CompletableFuture.allOf(results).join();
+        } finally {
+            orchestrator.shutdown();
+        }
+        long wallTime = System.nanoTime() - start;
+
+        int ores = 0;
+        double minOresPerHour = Double.MAX_VALUE;
+        double maxOresPerHour = 0;
+        for (SimulatedGame game : games) {
+            ores += game.getOresMined();
+            minOresPerHour = Math.min(minOresPerHour, game.getOresPerHour());
+            maxOresPerHour = Math.max(maxOresPerHour, game.getOresPerHour());
+        }
+
+        System.out.println(String.format("Simulated %d sessions for %.2f h on %s: %d ores, %.1f-%.1f/h per session",
+                sessions, hours, orchestrator.usesVirtualThreads() ? "virtual threads" : "platform threads", ores,
+                minOresPerHour, maxOresPerHour));
+        System.out.println(String.format("Wall time: %.1f ms", wallTime / 1e6));
+    }
+
+    /**
+     * Creates a simulated Lumbridge Swamp mine with the player standing at its entrance.
+     */
+    public static SimulatedGame createLumbridgeSwamp(long seed) {
+        return createLumbridgeSwamp(seed, 0);
+    }
+
+    /**
+     * Creates a simulated Lumbridge Swamp mine with the player and some other players standing at its entrance.
+     */
+    public static SimulatedGame createLumbridgeSwamp(long seed, int otherPlayers) {
+        SimulatedGame game = new SimulatedGame(seed, new RSTile(3226, 3149, 0), BANK);
+        game.addRock(new RSTile(3223, 3146, 0), Rock.TIN, "Tin ore", 11360, 2400, 0.35);
+        game.addRock(new RSTile(3222, 3147, 0), Rock.TIN, "Tin ore", 11362, 2400, 0.35);
+        game.addRock(new RSTile(3224, 3145, 0), Rock.TIN, "Tin ore", 11364, 2400, 0.35);
+        game.addRock(new RSTile(3228, 3146, 0), Rock.TIN, "Tin ore", 11366, 2400, 0.35);
+        for (int i = 0; i < otherPlayers; i++) {
+            game.addOtherPlayer(new RSTile(3226, 3149, 0));
+        }
+        return game;
+    }
+
+    /**
+     * Runs a mining session's loop on the calling thread until the given amount of game time has passed.
+     *
+     * @return The number of loop iterations that were run.
+     */
+    public static int run(SimulatedGame game, MiningSession session, long duration) {
+        int loops = 0;
+        while (game.currentTimeMillis() < duration) {
+            game.sleep(session.step());
+            loops++;
+        }
+        return loops;
+    }
+
+}
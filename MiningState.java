@@ -0,0 +1,20 @@
+/**
+ * The states of a mining session's loop (see {@link MiningSession}). Each step of a session only runs the action and
+ * checks of the state it is in.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public enum MiningState {
+
+    WALK_TO_MINE,  // walking from wherever the character is to the mine entrance
+    SELECT_ROCK,   // in the mine, choosing the next rock to mine
+    MINING,        // mining the selected rock until its ore is extracted
+    DROPPING,      // inventory is full and ores are dropped
+    WALK_TO_BANK,  // inventory is full and the character walks to the bank
+    BANKING,       // in the bank, depositing the inventory
+    HOPPING        // in the mine, hopping to a world with more ore to mine
+
+}
@@ -0,0 +1,247 @@
+/**
+ * This class picks the script's variables from data instead of by hand. It simulates every combination of how ores
+ * are got rid of (banking, dropping or power mining) and how rocks are chosen (the nearest rocks within a mining range,
+ * or predetermined rocks, walked between or mined from one standing tile) on the {@link SimulatedGame} model of the
+ * Lumbridge Swamp mine, for several numbers of other players in the mine. For each number of other players it prints
+ * the combinations ranked by ores per hour, with their failed mine attempts and the CPU time spent per ore.
+ *
+ * Every combination is run on several seeds, and all runs are simulated in parallel on a fork-join pool with a thread
+ * per core. A run shares nothing with the others: it has its own simulated game and session, bound to the thread it
+ * runs on, and its CPU time is that thread's.
+ *
+ * The waits that are still fixed are swept too: the pause before hovering the next rock and the timeout a rock is given
+ * up after (which caps the one {@link AdaptiveWaits} learns). The poll intervals and the other timeouts are not: they
+ * are set by AdaptiveWaits from the latencies seen, and whether a pause is made at all is decided by
+ * {@link TickScheduler}.
+ *
+ * Usage: MiningTuner [hours of game time per run] [seeds per combination] [numbers of other players...]
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class MiningTuner {
+
+    private static final int[] MINING_RANGES = {3, 5, 8, 12};
+    private static final int[][] HOVER_PAUSES = {{100, 200}, {250, 400}, {400, 600}};       // min and max ms
+    private static final int[][] DEPLETION_TIMEOUTS = {{10000, 15000}, {35000, 40000}};    // min and max ms
+
+    // two rocks of the simulated mine that share a neighbouring tile, and all of its rocks
+    private static final RSTile[] ROCK_PAIR = {new RSTile(3223, 3146, 0), new RSTile(3222, 3147, 0)};
+    private static final RSTile[] ALL_ROCKS = {new RSTile(3223, 3146, 0), new RSTile(3222, 3147, 0),
+            new RSTile(3224, 3145, 0), new RSTile(3228, 3146, 0)};
+
+    private enum Disposal {
+        BANK, DROP, POWER_MINE
+    }
+
+    /**
+     * A combination of the script's variables.
+     * */
+    private static class Candidate {
+        private final Disposal disposal;
+        private final int miningRange;          // used if there are no rock positions
+        private final RSTile[] rockPositions;   // or null to mine the nearest rocks
+        private final boolean stationary;
+        private final int[] hoverPause;         // min and max ms
+        private final int[] depletionTimeout;   // min and max ms
+
+        private Candidate(Disposal disposal, int miningRange, RSTile[] rockPositions, boolean stationary,
+                          int[] hoverPause, int[] depletionTimeout) {
+            this.disposal = disposal;
+            this.miningRange = miningRange;
+            this.rockPositions = rockPositions;
+            this.stationary = stationary;
+            this.hoverPause = hoverPause;
+            this.depletionTimeout = depletionTimeout;
+        }
+
+        private MiningConfig createConfig() {
+            MiningConfig config = new MiningConfig(MiningSimulation.MINE, MiningSimulation.MINE_ENTRANCE);
+            config.setBanking(disposal == Disposal.BANK);
+            config.setPowerMining(disposal == Disposal.POWER_MINE);
+            config.setMiningRange(miningRange);
+            config.setRockPositions(rockPositions);
+            config.setStationary(stationary);
+            config.setHoverPause(hoverPause[0], hoverPause[1]);
+            config.setDepletionTimeout(depletionTimeout[0], depletionTimeout[1]);
+            return config;
+        }
+
+        @Override
+        public String toString() {
+            String rocks = rockPositions == null ? "miningRange=" + miningRange
+                    : "rockPositions=" + (rockPositions == ROCK_PAIR ? "pair" : "all");
+            return String.format("%-10s %-17s %-11s hover=%d-%d depletion=%d-%d", disposal, rocks,
+                    stationary ? "stationary" : "", hoverPause[0], hoverPause[1], depletionTimeout[0],
+                    depletionTimeout[1]);
+        }
+    }
+
+    /**
+     * The combined results of a candidate's runs with a number of other players.
+     * */
+    private static class Result {
+        private final Candidate candidate;
+        private final int otherPlayers;
+        private double oresPerHour = 0;         // the sums until every run is added, the means after
+        private double minOresPerHour = Double.MAX_VALUE;
+        private double failedPerHour = 0;
+        private long cpuTime = 0;               // nanoseconds
+        private int ores = 0;
+
+        private Result(Candidate candidate, int otherPlayers) {
+            this.candidate = candidate;
+            this.otherPlayers = otherPlayers;
+        }
+    }
+
+    /**
+     * What one run of a candidate on one seed measured.
+     * */
+    private static class Run {
+        private final Result result;
+        private final double oresPerHour;
+        private final double failedPerHour;
+        private final long cpuTime;
+        private final int ores;
+
+        private Run(Result result, double oresPerHour, double failedPerHour, long cpuTime, int ores) {
+            this.result = result;
+            this.oresPerHour = oresPerHour;
+            this.failedPerHour = failedPerHour;
+            this.cpuTime = cpuTime;
+            this.ores = ores;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        double hours = args.length > 0 ? Double.parseDouble(args[0]) : 2;
+        int seeds = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int[] otherPlayerCounts = new int[Math.max(args.length - 2, 1)];
+        for (int i = 2; i < args.length; i++) {
+            otherPlayerCounts[i - 2] = Integer.parseInt(args[i]);
+        }
+
+        MiningLog.setStandardOutput();
+        // the simulated sessions log far faster than real ones; only problems are of interest here
+        MiningLog.setLevel(LogLevel.WARN);
+
+        List<Candidate> candidates = createCandidates();
+        List<Result> results = new ArrayList<>();
+        List<Callable<Run>> runs = new ArrayList<>();
+        for (int otherPlayers : otherPlayerCounts) {
+            for (Candidate candidate : candidates) {
+                Result result = new Result(candidate, otherPlayers);
+                results.add(result);
+                for (int seed = 0; seed < seeds; seed++) {
+                    runs.add(createRun(result, seed, (long) (hours * 3600000)));
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        try {
+            for (Future<Run> future : pool.invokeAll(runs)) {
+                Run run = future.get();
+                Result result = run.result;
+                result.oresPerHour += run.oresPerHour;
+                result.minOresPerHour = Math.min(result.minOresPerHour, run.oresPerHour);
+                result.failedPerHour += run.failedPerHour;
+                result.cpuTime += run.cpuTime;
+                result.ores += run.ores;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long wallTime = System.nanoTime() - start;
+
+        for (Result result : results) {
+            result.oresPerHour /= seeds;
+            result.failedPerHour /= seeds;
+        }
+        report(results, otherPlayerCounts);
+        System.out.println(String.format("Simulated %d runs of %.2f h on %d threads in %.1f s", runs.size(), hours,
+                pool.getParallelism(), wallTime / 1e9));
+    }
+
+    private static List<Candidate> createCandidates() {
+        List<Candidate> candidates = new ArrayList<>();
+        for (Disposal disposal : Disposal.values()) {
+            for (int[] hoverPause : HOVER_PAUSES) {
+                for (int[] depletionTimeout : DEPLETION_TIMEOUTS) {
+                    for (int miningRange : MINING_RANGES) {
+                        candidates.add(new Candidate(disposal, miningRange, null, false, hoverPause,
+                                depletionTimeout));
+                    }
+                    candidates.add(new Candidate(disposal, 0, ALL_ROCKS, false, hoverPause, depletionTimeout));
+                    candidates.add(new Candidate(disposal, 0, ROCK_PAIR, false, hoverPause, depletionTimeout));
+                    candidates.add(new Candidate(disposal, 0, ROCK_PAIR, true, hoverPause, depletionTimeout));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static Callable<Run> createRun(final Result result, final long seed, final long duration) {
+        return new Callable<Run>() {
+            @Override
+            public Run call() {
+                SimulatedGame game = MiningSimulation.createLumbridgeSwamp(seed, result.otherPlayers);
+                MiningSession session = new MiningSession(result.candidate.createConfig(), new GameContext(game));
+
+                ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+                long cpuStart = threads.getCurrentThreadCpuTime();
+                MiningSimulation.run(game, session, duration);
+                long cpuTime = threads.getCurrentThreadCpuTime() - cpuStart;
+
+                return new Run(result, game.getOresPerHour(),
+                        session.getContext().metrics().getFailedMineAttemptsPerHour(), cpuTime, game.getOresMined());
+            }
+        };
+    }
+
+    /**
+     * Prints the results for each number of other players, the candidate with the most ores per hour first.
+     */
+    private static void report(List<Result> results, int[] otherPlayerCounts) {
+        for (int otherPlayers : otherPlayerCounts) {
+            List<Result> ranked = new ArrayList<>();
+            for (Result result : results) {
+                if (result.otherPlayers == otherPlayers) ranked.add(result);
+            }
+            Collections.sort(ranked, new Comparator<Result>() {
+                @Override
+                public int compare(Result a, Result b) {
+                    return Double.compare(b.oresPerHour, a.oresPerHour);
+                }
+            });
+
+            System.out.println(String.format("%nOther players: %d", otherPlayers));
+            System.out.println(String.format("%4s  %-75s %9s %9s %9s %10s", "rank", "variables", "ores/h", "min/h",
+                    "failed/h", "cpu us/ore"));
+            for (int i = 0; i < ranked.size(); i++) {
+                Result result = ranked.get(i);
+                System.out.println(String.format("%4d  %-75s %9.1f %9.1f %9.1f %10.1f", i + 1, result.candidate,
+                        result.oresPerHour, result.minOresPerHour, result.failedPerHour,
+                        result.cpuTime / 1e3 / Math.max(result.ores, 1)));
+            }
+        }
+    }
+
+}
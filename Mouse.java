@@ -0,0 +1,33 @@
+/**
+ * The Mouse interface provides the mouse interactions used by the mining logic.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public interface Mouse {
+
+    boolean hover(ObservedRock rock);
+
+    /**
+     * @return True if the cursor is on the rock as it is drawn now, so a click where the cursor is would hit it.
+     */
+    boolean isOn(ObservedRock rock);
+
+    /**
+     * Clicks an option (e.g. "Mine") on a rock.
+     *
+     * @return True if the option was clicked, false otherwise.
+     */
+    boolean click(ObservedRock rock, String option);
+
+    /**
+     * Clicks an option on a rock the cursor is on without moving the cursor; clicks like {@link #click} if the option
+     * is not the one a left click on the cursor's position would choose.
+     *
+     * @return True if the option was clicked, false otherwise.
+     */
+    boolean clickInPlace(ObservedRock rock, String option);
+
+}
@@ -0,0 +1,59 @@
+/**
+ * The ObservedPlayer class holds what was seen of another player at the moment they were observed: their position,
+ * the direction they were facing and their animation. Reading these values does not query the game client.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+public class ObservedPlayer {
+
+    // tile offsets of the 8 directions, starting south and turning clockwise like the game's orientation
+    private static final int[] DIRECTION_X = {0, -1, -1, -1, 0, 1, 1, 1};
+    private static final int[] DIRECTION_Y = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+    private final RSTile position;  // the player's position when observed
+    private final int packedTile;   // the player's position packed by Tiles.pack
+    private final int orientation;  // the game's orientation: 0 faces south, 512 west, 1024 north, 1536 east
+    private final int animation;    // the player's animation when observed, or -1 if they were not animating
+
+    public ObservedPlayer(RSTile position, int orientation, int animation) {
+        this.position = position;
+        this.packedTile = Tiles.pack(position);
+        this.orientation = orientation;
+        this.animation = animation;
+    }
+
+    public RSTile getPosition() {
+        return position;
+    }
+
+    public int getPackedTile() {
+        return packedTile;
+    }
+
+    public int getOrientation() {
+        return orientation;
+    }
+
+    public int getAnimation() {
+        return animation;
+    }
+
+    public boolean isAnimating() {
+        return animation > 0;
+    }
+
+    /**
+     * @return The packed tile next to the player in the direction they were facing, e.g. the rock they are mining.
+     */
+    public int getFacedTile() {
+        int direction = ((orientation + 128) & 2047) / 256;
+        return Tiles.pack(Tiles.getX(packedTile) + DIRECTION_X[direction], Tiles.getY(packedTile)
+                + DIRECTION_Y[direction], Tiles.getPlane(packedTile));
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * The ObservedRock class holds what was seen of a rock at the moment it was observed: its position, its object ID
+ * and the modified colours of its definition. Reading these values does not query the game client.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSObject;
+import org.tribot.api2007.types.RSObjectDefinition;
+import org.tribot.api2007.types.RSTile;
+
+public class ObservedRock {
+
+    private final RSObject object;   // the live RSObject, used for clicking/hovering (null if simulated)
+    private final RSTile position;   // the rock's position when observed
+    private final int packedTile;    // the rock's position packed by Tiles.pack
+    private final int id;            // the rock's object ID when observed
+    private final short[] colours;   // the rock's modified colours when observed (may be null)
+    private final int rockMask;      // the rock types matching the colours, see RockColourIndex.getRockMask
+
+    public ObservedRock(RSObject object) {
+        this(object, object.getPosition(), object.getID(), getModifiedColours(object));
+    }
+
+    /**
+     * @param object: the live RSObject, or null if the rock does not come from the game client (e.g. simulated)
+     * */
+    public ObservedRock(RSObject object, RSTile position, int id, short[] colours) {
+        this.object = object;
+        this.position = position;
+        this.packedTile = Tiles.pack(position);
+        this.id = id;
+        this.colours = colours;
+        this.rockMask = RockColourIndex.getRockMask(colours);
+    }
+
+    private static short[] getModifiedColours(RSObject object) {
+        RSObjectDefinition definition = object.getDefinition();
+        return definition == null ? null : definition.getModifiedColors();
+    }
+
+    public RSObject getObject() {
+        return object;
+    }
+
+    public RSTile getPosition() {
+        return position;
+    }
+
+    public int getPackedTile() {
+        return packedTile;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public short[] getColours() {
+        return colours;
+    }
+
+    /**
+     * Checks if the rock had the colours of the given rock type when it was observed.
+     *
+     * @return True if it did; false otherwise.
+     */
+    public boolean isType(Rock type) {
+        return (rockMask & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * @return The rock type the rock was observed as, or null if it had no ore (e.g. depleted).
+     */
+    public Rock getType() {
+        return RockColourIndex.classify(colours);
+    }
+
+}
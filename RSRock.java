@@ -6,18 +6,13 @@
 
 package scripts.mining;
 
-import org.tribot.api.DynamicClicking;
-import org.tribot.api.General;
-import org.tribot.api2007.Objects;
-import org.tribot.api2007.Walking;
-import org.tribot.api2007.types.RSObject;
 import org.tribot.api2007.types.RSTile;
 
 public class RSRock {
 
     private Rock rockType;  // the type of the rock to mine
     private int distance;   // the distance the rock must be in for it to be mined
-    private RSObject rock;  // the RSObject representation of the rock
+    private ObservedRock rock;  // the observed representation of the rock
 
     /**
      * The following three methods act as the constructor for an RSRock object. Due to the dynamic environment,
@@ -25,71 +20,111 @@ public class RSRock {
      *
      * @return: True if the RSRock was successfully constructed; false otherwise.
      * */
-    public boolean setNearestRock(Rock type, int distance) {
-        rockType = type;
+    public boolean setBestRock(RockTargets targets, int distance) {
+        WorldSnapshot snapshot = GameContext.current().snapshot();
 
-        RSObject[] rocks = Objects.findNearest(distance, "Rocks");
+        ObservedRock[] rocks = snapshot.findNearestRocks(distance);
         if (rocks.length == 0) return false;
 
-        rock = MiningHelper.getSuitableMineableRock(rocks, type);
+        rock = targets.getBestRock(rocks, null, snapshot.getPlayerPosition());
         if (rock == null) return false;
 
+        rockType = targets.getTarget(rock).getType();
         this.distance = distance;
 
         return true;
     }
 
-    public boolean setSinglePredeterminedRock(Rock type, RSTile position) {
-        if(!Objects.isAt(position, "Rocks")) return false;
+    public boolean setSinglePredeterminedRock(RockTargets targets, RSTile position) {
+        ObservedRock rockAtPosition = GameContext.current().snapshot().getRockAt(position);
+        if (rockAtPosition == null) return false;
 
-        rockType = type;
+        // a rock a sibling bot is about to mine is left to it
+        if (GameContext.current().board().isClaimedBySibling(rockAtPosition.getPackedTile())) return false;
 
-        RSObject[] rocks = Objects.getAt(position);
-        rock = rocks[0];
+        // a depleted rock has no type to mine it as; it is selected again once it respawns
+        RockTarget target = targets.getTarget(rockAtPosition);
+        if (target == null) return false;
+
+        rockType = target.getType();
+
+        rock = rockAtPosition;
 
         return true;
     }
 
-    public boolean setNearestPredeterminedRock(Rock type, RSObject[] sortedNearestPredeterminedRocks) {
-       rockType = type;
+    public boolean setBestPredeterminedRock(RockTargets targets, ObservedRock[] predeterminedRocks) {
+        rock = targets.getBestRock(predeterminedRocks, null, GameContext.current().snapshot().getPlayerPosition());
+        if (rock == null) return false;
 
-       rock = MiningHelper.getSuitableMineableRock(sortedNearestPredeterminedRocks, type);
-       if (rock == null) return false;
+        rockType = targets.getTarget(rock).getType();
 
         return true;
     }
 
+    public ObservedRock getRock() {
+        return rock;
+    }
+
     /**
      * This method walks the character to the rock if it is not on the screen. It then ensures the rock is on the screen
-     * and minable before clicking it. Once clicked, it waits for the ore to be extracted from the rock.
+     * and minable before clicking it. If the cursor was readied on the rock while the last one was mined (see
+     * {@link CursorPipeline}), the rock is clicked right away instead: it is on the screen, under the cursor, and the
+     * snapshot it was selected from has just shown it with ore. Once clicked, it waits for the ore to be extracted from
+     * the rock.
      *
      * @return: True if the rock's ore is extracted; false otherwise.
      * */
     public boolean mine() {
-        if (!rock.isOnScreen()) {
-            if (!Walking.walkPath(Walking.generateStraightPath(rock))) return false;
+        GameContext context = GameContext.current();
+        MiningMetrics metrics = context.metrics();
+        CursorPipeline cursor = MiningSession.current().getCursor();
+
+        if (!cursor.isReady(rock)) {
+            // a stationary character is already next to the rock, and must not leave its standing tile
+            if (!MiningSession.current().isStationary() && !context.world().isOnScreen(rock)) {
+                long walkStart = metrics.start();
+                boolean walked = context.walker().walkStraightTo(rock.getPosition());
+                if (!metrics.record(MiningPhase.WALK_TO_ROCK, walkStart, walked)) return false;
+            }
+            MiningLog.debug("Walking to Rock");
+
+            long waitStart = metrics.start();
+            if (!metrics.record(MiningPhase.WAIT_FOR_ROCK, waitStart,
+                    MiningHelper.isRockOnScreenAndMineable(rock, rockType))) {
+                MiningLog.info("Rock Not on Screen / Mineable");
+                return false;
+            }
         }
-        General.println("Walking to Rock");
 
-        if (!MiningHelper.isRockOnScreenAndMineable(rock, rockType)) {
-            General.println("Rock Not on Screen / Mineable");
+        // the walk can outlast the claim on the rock; if a sibling bot claimed it meanwhile, the rock is left to it
+        if (!context.board().claim(rock.getPackedTile())) {
+            MiningLog.info("Rock Claimed by a Sibling Bot");
             return false;
         }
 
-        if (!DynamicClicking.clickRSObject(rock, "Mine")) {
-            General.println("Unable to Click Mine on Rock");
+        long clickStart = metrics.start();
+        boolean clicked = cursor.fire(rock, "Mine");
+        context.recorder().recordClick(clickStart, rock, clicked);
+        if (!metrics.record(MiningPhase.CLICK, clickStart, clicked)) {
+            MiningLog.warn("Unable to Click Mine on Rock");
             return false;
         }
-        General.println("Clicked Rock");
+        MiningLog.debug("Clicked Rock");
 
-        if (!MiningHelper.isCharacterMining()) {
-            General.println("Character is Not Mining");
+        long animationStart = metrics.start();
+        if (!metrics.record(MiningPhase.WAIT_FOR_ANIMATION, animationStart, MiningHelper.isCharacterMining())) {
+            MiningLog.info("Character is Not Mining");
             return false;
         }
-        General.println("Mining");
+        MiningLog.debug("Mining");
 
-        if (!MiningHelper.isRockDoneBeingMined(rock, rockType, distance)) return false;
+        long depletionStart = metrics.start();
+        if (!metrics.record(MiningPhase.WAIT_FOR_DEPLETION, depletionStart,
+                MiningHelper.isRockDoneBeingMined(rock, rockType, distance))) return false;
 
+        MiningSession.current().getTargets().recordMineTime(rockType, context.clock().currentTimeMillis()
+                - animationStart);
         return true;
     }
 
@@ -0,0 +1,150 @@
+/**
+ * This class learns how long rocks take to respawn. Every observation of a rock tile is recorded; when a rock is seen
+ * losing its ore and later seen with it again, the time in between is added to the respawn statistics of its rock type.
+ * A respawn only counts if the rock was seen with ore at most a tick before it was first seen without, and without ore
+ * at most a tick before it was seen with ore again, so a rock that ran out or respawned while nobody watched it (e.g.
+ * during a bank trip) does not make respawns look shorter or longer than they are. Those statistics are used to predict
+ * when a depleted rock will be ready to mine again.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class RespawnTracker {
+
+    public static final long UNKNOWN = Long.MAX_VALUE;
+
+    private static class TileRecord {
+        private Rock lastType = null;             // the type the rock had when it last had ore
+        private long lastOreAt = -1;              // when the rock was last seen with ore
+        private long depletedAt = -1;             // when the rock was first seen without ore; -1 if it has ore
+        private long lastDepletedAt = -1;         // when the rock was last seen without ore
+        private boolean depletionObserved = false; // true if the rock had ore at most a tick before depletedAt
+    }
+
+    private static class RespawnStats {
+        private int samples = 0;
+        private double averageRespawnTime = 0;
+    }
+
+    private final TileMap<TileRecord> tiles = new TileMap<>();
+    private final Map<Rock, RespawnStats> stats = new EnumMap<>(Rock.class);
+
+    /**
+     * Records an observation of a rock.
+     */
+    public synchronized void observe(ObservedRock rock, long time) {
+        TileRecord record = tiles.get(rock.getPackedTile());
+        if (record == null) {
+            record = new TileRecord();
+            tiles.put(rock.getPackedTile(), record);
+        }
+
+        Rock type = rock.getType();
+        if (type != null) {
+            // rock has ore -> if it was depleted, it has just respawned
+            if (record.depletedAt >= 0 && record.depletionObserved && record.lastType == type
+                    && time - record.lastDepletedAt <= WorldSnapshot.TICK_LENGTH) {
+                addRespawnSample(type, time - record.depletedAt);
+            }
+            record.lastType = type;
+            record.lastOreAt = time;
+            record.depletedAt = -1;
+        } else {
+            record.lastDepletedAt = time;
+            if (record.depletedAt >= 0) return;
+
+            // rock has no ore -> remember when that was first seen, and if it had ore just before
+            record.depletedAt = time;
+            record.depletionObserved = record.lastType != null
+                    && time - record.lastOreAt <= WorldSnapshot.TICK_LENGTH;
+        }
+    }
+
+    /**
+     * Forgets every rock tile, e.g. after hopping to another world, where the rocks are in other states. What was
+     * learned about respawn times is kept.
+     */
+    public synchronized void forgetRocks() {
+        tiles.clear();
+    }
+
+    private void addRespawnSample(Rock type, long respawnTime) {
+        RespawnStats typeStats = stats.get(type);
+        if (typeStats == null) {
+            typeStats = new RespawnStats();
+            stats.put(type, typeStats);
+        }
+
+        typeStats.samples++;
+        typeStats.averageRespawnTime += (respawnTime - typeStats.averageRespawnTime) / typeStats.samples;
+    }
+
+    /**
+     * @return The average respawn time of a rock type in milliseconds, or UNKNOWN if none has been seen yet.
+     */
+    public synchronized long getAverageRespawnTime(Rock type) {
+        RespawnStats typeStats = stats.get(type);
+        if (typeStats == null) return UNKNOWN;
+
+        return (long) typeStats.averageRespawnTime;
+    }
+
+    /**
+     * Predicts when the rock at a tile will next have ore of the given type.
+     *
+     * @return The expected time in milliseconds; 0 if the rock was last seen with ore; UNKNOWN if it cannot be
+     * predicted (the tile has never been seen with that ore, or no respawn of that type has been seen yet).
+     */
+    public synchronized long getExpectedReadyAt(RSTile tile, Rock type) {
+        return getExpectedReadyAt(Tiles.pack(tile), type);
+    }
+
+    private long getExpectedReadyAt(int packedTile, Rock type) {
+        TileRecord record = tiles.get(packedTile);
+        if (record == null || record.lastType != type) return UNKNOWN;
+        if (record.depletedAt < 0) return 0;
+
+        long averageRespawnTime = getAverageRespawnTime(type);
+        if (averageRespawnTime == UNKNOWN) return UNKNOWN;
+
+        return record.depletedAt + averageRespawnTime;
+    }
+
+    /**
+     * Finds the depleted rock of the given type that is expected to respawn first. Until a respawn of the type has been
+     * seen, the rock that was depleted first is assumed to respawn first. Rocks are expected to be sorted by distance,
+     * so the nearest one wins a tie.
+     *
+     * @return The rock that will respawn soonest, or null if none of the rocks is a depleted rock of the type.
+     */
+    public synchronized ObservedRock getSoonestRespawningRock(ObservedRock[] rocks, Rock type) {
+        long averageRespawnTime = getAverageRespawnTime(type);
+        if (averageRespawnTime == UNKNOWN) averageRespawnTime = 0;
+
+        ObservedRock soonestRock = null;
+        long soonestReadyAt = UNKNOWN;
+
+        for (ObservedRock rock : rocks) {
+            if (rock == null || rock.getType() != null) continue;
+
+            TileRecord record = tiles.get(rock.getPackedTile());
+            if (record == null || record.lastType != type || record.depletedAt < 0) continue;
+
+            long readyAt = record.depletedAt + averageRespawnTime;
+            if (readyAt < soonestReadyAt) {
+                soonestRock = rock;
+                soonestReadyAt = readyAt;
+            }
+        }
+
+        return soonestRock;
+    }
+
+}
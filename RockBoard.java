@@ -0,0 +1,382 @@
+/**
+ * The RockBoard class lets several bots mining the same mine from the same machine (sibling bots, in one process or
+ * several) tell each other which rocks they are about to mine, so two of them do not go for the same rock and one of
+ * them waste a whole mine() cycle. The bots share a memory-mapped board file with one SLOT_SIZE byte slot per rock,
+ * keyed by world and tile:
+ *
+ *   int sequence | int world | int tile | byte state | 3 bytes of padding | long owner | long time
+ *
+ * A bot claims the rock it selects (CLAIMED, with its owner ID and the time the claim runs out), renews the claim
+ * while it walks to and mines the rock, and releases it (FREE) once it is done; whoever sees the rock depleted ends
+ * any claim on it too. Rocks claimed by a sibling are skipped when choosing a rock.
+ *
+ * Reading a slot takes no lock: the writer makes the sequence odd while it writes, and a reader retries if the
+ * sequence was odd or changed while it read the slot. Mapped memory has no volatile or ordered accessors in Java 8, so
+ * the reads and writes of a slot are kept on their side of its sequence by the load and store fences of
+ * sun.misc.Unsafe. On a JVM without it the fences are left out, and the retry only prevents torn reads on x86, which
+ * does not reorder loads with loads or stores with stores (the JIT compiler may still reorder them, very rarely).
+ * Writes are serialised by a lock on the file's header, since Java cannot compare-and-set mapped memory. Nothing stays
+ * wrong if a bot's process dies: the operating system releases the file lock of a dead process, a slot it was writing
+ * is rewritten by the next write, and its claims run out after CLAIM_LEASE because they are no longer renewed.
+ *
+ * Until it has joined a board file, the board ignores every call and no rock is claimed by a sibling.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RockBoard {
+
+    public static final int MAGIC = 0x4D424F41;  // "MBOA"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int SLOT_SIZE = 32;
+    public static final int DEFAULT_SLOTS = 4096;
+
+    public static final byte FREE = 0;           // no claim, or the claim was released or the rock depleted
+    public static final byte CLAIMED = 1;
+
+    private static final long CLAIM_LEASE = 6000;    // milliseconds a claim holds without being renewed
+    private static final long STALE_AFTER = 600000;  // milliseconds after which an unclaimed slot may be reused
+    private static final int MAX_PROBES = 16;        // slots tried for a rock before the board counts as full
+    private static final int READ_ATTEMPTS = 4;      // reads of a slot being written before giving up on it
+
+    private static final int WORLD_OFFSET = 4;
+    private static final int TILE_OFFSET = 8;
+    private static final int STATE_OFFSET = 12;
+    private static final int OWNER_OFFSET = 16;
+    private static final int TIME_OFFSET = 24;
+
+    /**
+     * A board file as mapped by this JVM. File locks are held by the whole JVM, so every board joining the same file
+     * shares its mapping and takes its monitor before taking the file lock.
+     */
+    private static class BoardFile {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int slots;
+
+        private BoardFile(FileChannel channel, MappedByteBuffer buffer, int slots) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.slots = slots;
+        }
+    }
+
+    private static final Map<String, BoardFile> openFiles = new HashMap<>();
+    // the fences around slot sequences, bound to sun.misc.Unsafe (looked up reflectively), or null if it is unavailable
+    private static final MethodHandle LOAD_FENCE = getUnsafeFence("loadFence");
+    private static final MethodHandle STORE_FENCE = getUnsafeFence("storeFence");
+
+    private final GameClock clock;
+    private final long owner;                   // this bot's ID in the claims it writes; never 0
+    private volatile BoardFile file = null;     // null until the board has joined a file
+    private volatile int world = 0;
+
+    /**
+     * @param clock: the clock claims are timed by; bots sharing a board must share the time (e.g. the system time)
+     */
+    public RockBoard(GameClock clock) {
+        this.clock = clock;
+
+        long id = 0;
+        SecureRandom random = new SecureRandom();
+        while (id == 0) {
+            id = random.nextLong();
+        }
+        this.owner = id;
+    }
+
+    /**
+     * Joins a board file, creating it with DEFAULT_SLOTS slots if it does not exist yet.
+     *
+     * @throws IOException if the file cannot be created or mapped, or is not a board of a supported version
+     */
+    public void join(File boardFile) throws IOException {
+        String path = boardFile.getCanonicalPath();
+        synchronized (openFiles) {
+            BoardFile opened = openFiles.get(path);
+            if (opened == null) {
+                opened = open(boardFile, DEFAULT_SLOTS);
+                openFiles.put(path, opened);
+            }
+            this.file = opened;
+        }
+    }
+
+    private static BoardFile open(File boardFile, int slots) throws IOException {
+        // the channel stays open for the file locks, as long as the JVM runs
+        FileChannel channel = new RandomAccessFile(boardFile, "rw").getChannel();
+        try {
+            FileLock lock = channel.lock(0, HEADER_SIZE, false);
+            try {
+                // whoever creates the file writes the header, while every other bot waits for the lock
+                if (channel.size() == 0) {
+                    MappedByteBuffer created = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                            HEADER_SIZE + (long) slots * SLOT_SIZE);
+                    created.putInt(4, VERSION);
+                    created.putInt(8, SLOT_SIZE);
+                    created.putInt(12, slots);
+                    created.putInt(0, MAGIC);
+                    return new BoardFile(channel, created, slots);
+                }
+
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt(0) != MAGIC) throw new IOException(boardFile + " is not a rock board");
+                if (header.getInt(4) != VERSION || header.getInt(8) != SLOT_SIZE) {
+                    throw new IOException("Unsupported rock board version " + header.getInt(4));
+                }
+                int fileSlots = header.getInt(12);
+                return new BoardFile(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        HEADER_SIZE + (long) fileSlots * SLOT_SIZE), fileSlots);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Sets the world the player is on; only the rocks of that world are claimed and looked up.
+     */
+    public void setWorld(int world) {
+        this.world = world;
+    }
+
+    /**
+     * @return True if a sibling bot holds a claim on the rock at a tile that has not run out.
+     */
+    public boolean isClaimedBySibling(int tile) {
+        BoardFile file = this.file;
+        if (file == null) return false;
+
+        int offset = findSlot(file, world, tile);
+        return offset >= 0 && getClaimEnd(file, offset, false) > clock.currentTimeMillis();
+    }
+
+    /**
+     * Reads the claim in a slot without a lock (see the class comment).
+     *
+     * @param own: true for a claim of this bot, false for a claim of a sibling
+     *
+     * @return The time the claim runs out, or 0 if the slot holds no claim of that owner.
+     */
+    private long getClaimEnd(BoardFile file, int offset, boolean own) {
+        MappedByteBuffer buffer = file.buffer;
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            int sequence = buffer.getInt(offset);
+            loadFence();
+            if ((sequence & 1) != 0) continue;
+
+            byte state = buffer.get(offset + STATE_OFFSET);
+            long slotOwner = buffer.getLong(offset + OWNER_OFFSET);
+            long time = buffer.getLong(offset + TIME_OFFSET);
+            loadFence();
+            if (buffer.getInt(offset) != sequence) continue;
+
+            return state == CLAIMED && (slotOwner == owner) == own ? time : 0;
+        }
+        // a slot that stays half-written was being written by a bot that died: its claim is as good as gone
+        return 0;
+    }
+
+    /**
+     * Claims the rock at a tile, or renews this bot's claim on it once half of the lease has run out.
+     *
+     * @return False if a sibling holds a claim on the rock; true otherwise (also if the board could not be written,
+     * so a board failure never stops the bot from mining).
+     */
+    public boolean claim(int tile) {
+        BoardFile file = this.file;
+        if (file == null) return true;
+
+        long now = clock.currentTimeMillis();
+        int offset = findSlot(file, world, tile);
+        if (offset >= 0) {
+            if (getClaimEnd(file, offset, true) - now > CLAIM_LEASE / 2) return true;
+            if (getClaimEnd(file, offset, false) > now) return false;
+        }
+
+        return write(file, tile, CLAIMED, now + CLAIM_LEASE, now, false);
+    }
+
+    /**
+     * Gives up this bot's claim on the rock at a tile, e.g. when the rock could not be clicked.
+     */
+    public void release(int tile) {
+        BoardFile file = this.file;
+        if (file == null) return;
+
+        int offset = findSlot(file, world, tile);
+        if (offset < 0 || getClaimEnd(file, offset, true) == 0) return;
+
+        long now = clock.currentTimeMillis();
+        write(file, tile, FREE, now, now, true);
+    }
+
+    /**
+     * Publishes what an observation of a rock shows: a depleted rock ends every claim on it, so the rock can be claimed
+     * as soon as it respawns even if its claimer died. The slot is read first, so only changes are written.
+     */
+    public void observe(ObservedRock rock) {
+        BoardFile file = this.file;
+        if (file == null || rock.getType() != null) return;
+
+        // only rocks that have been claimed have a slot, and the others need none
+        int offset = findSlot(file, world, rock.getPackedTile());
+        if (offset < 0 || file.buffer.get(offset + STATE_OFFSET) != CLAIMED) return;
+
+        long now = clock.currentTimeMillis();
+        write(file, rock.getPackedTile(), FREE, now, now, false);
+    }
+
+    /**
+     * Writes a slot under the board's file lock. A claim is only written if no sibling holds one, and a slot is only
+     * written for ownClaimOnly if it still holds this bot's claim; both are checked again under the lock.
+     *
+     * @return False if the state is CLAIMED and a sibling holds a claim; true otherwise.
+     */
+    private boolean write(BoardFile file, int tile, byte state, long time, long now, boolean ownClaimOnly) {
+        int world = this.world;
+        if (world == 0) return true; // not logged in to a world: nothing to coordinate
+
+        MappedByteBuffer buffer = file.buffer;
+        synchronized (file) {
+            try {
+                FileLock lock = file.channel.lock(0, HEADER_SIZE, false);
+                try {
+                    int offset = findSlot(file, world, tile);
+                    if (offset < 0) offset = assignSlot(file, world, tile, now);
+                    if (offset < 0) return true; // the board is full: the rock is mined without coordination
+
+                    boolean claimed = buffer.get(offset + STATE_OFFSET) == CLAIMED;
+                    boolean ownClaim = claimed && buffer.getLong(offset + OWNER_OFFSET) == owner;
+                    boolean siblingClaim = claimed && !ownClaim && buffer.getLong(offset + TIME_OFFSET) > now;
+                    if (state == CLAIMED && siblingClaim) return false;
+                    if (ownClaimOnly && !ownClaim) return true;
+
+                    // made odd while the slot is written; a slot left odd by a dead writer is made even again here
+                    int sequence = buffer.getInt(offset) | 1;
+                    buffer.putInt(offset, sequence);
+                    storeFence();
+                    buffer.put(offset + STATE_OFFSET, state);
+                    buffer.putLong(offset + OWNER_OFFSET, state == CLAIMED ? owner : 0);
+                    buffer.putLong(offset + TIME_OFFSET, time);
+                    storeFence();
+                    buffer.putInt(offset, sequence + 1);
+                    return true;
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                MiningLog.log(LogLevel.WARN, "Unable to write the rock board", tile, e);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return The offset of the slot of a rock, or -1 if the rock has none.
+     */
+    private static int findSlot(BoardFile file, int world, int tile) {
+        int index = getFirstIndex(file, world, tile);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = HEADER_SIZE + ((index + probe) % file.slots) * SLOT_SIZE;
+            int slotWorld = file.buffer.getInt(offset + WORLD_OFFSET);
+            loadFence();
+            if (slotWorld == 0) return -1;
+            if (slotWorld == world && file.buffer.getInt(offset + TILE_OFFSET) == tile) return offset;
+        }
+        return -1;
+    }
+
+    /**
+     * Gives a rock the first empty slot along its probe sequence, or else the first slot that has not been written
+     * for STALE_AFTER and holds no claim. Must be called under the file lock.
+     *
+     * @return The offset of the slot, or -1 if the board is full.
+     */
+    private static int assignSlot(BoardFile file, int world, int tile, long now) {
+        MappedByteBuffer buffer = file.buffer;
+        int index = getFirstIndex(file, world, tile);
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int offset = HEADER_SIZE + ((index + probe) % file.slots) * SLOT_SIZE;
+            boolean empty = buffer.getInt(offset + WORLD_OFFSET) == 0;
+            boolean stale = now - buffer.getLong(offset + TIME_OFFSET) > STALE_AFTER;
+            if (!empty && !stale) continue;
+
+            int sequence = buffer.getInt(offset) | 1;
+            buffer.putInt(offset, sequence);
+            storeFence();
+            buffer.putInt(offset + TILE_OFFSET, tile);
+            buffer.put(offset + STATE_OFFSET, FREE);
+            buffer.putLong(offset + OWNER_OFFSET, 0);
+            buffer.putLong(offset + TIME_OFFSET, now);
+            // the world is written last: a reader that finds it finds the tile too
+            storeFence();
+            buffer.putInt(offset + WORLD_OFFSET, world);
+            storeFence();
+            buffer.putInt(offset, sequence + 1);
+            return offset;
+        }
+        return -1;
+    }
+
+    private static MethodHandle getUnsafeFence(String name) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup().findVirtual(unsafeClass, name, MethodType.methodType(void.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Keeps the loads before it from being reordered with the loads after it.
+     */
+    private static void loadFence() {
+        invokeFence(LOAD_FENCE);
+    }
+
+    /**
+     * Keeps the stores before it from being reordered with the stores after it.
+     */
+    private static void storeFence() {
+        invokeFence(STORE_FENCE);
+    }
+
+    private static void invokeFence(MethodHandle fence) {
+        if (fence == null) return;
+        try {
+            fence.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to run a memory fence", e);
+        }
+    }
+
+    private static int getFirstIndex(BoardFile file, int world, int tile) {
+        int hash = (world * 31 + tile) * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), file.slots);
+    }
+
+}
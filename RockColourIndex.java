@@ -0,0 +1,116 @@
+/**
+ * This class contains a precomputed lookup from a modified colour to the rock type(s) that use it. The lookup is built
+ * once when the class is initialised, so matching a rock only takes one array access per colour and never allocates.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSObject;
+import org.tribot.api2007.types.RSObjectDefinition;
+
+public class RockColourIndex {
+
+    private static final Rock[] ROCKS = Rock.values();
+
+    // one entry per possible colour value; bit i is set if the colour belongs to ROCKS[i]
+    private static final int[] COLOUR_TO_ROCK_MASK = new int[1 << 16];
+
+    static {
+        if (ROCKS.length > Integer.SIZE) {
+            throw new IllegalStateException("Too many rock types to index: " + ROCKS.length);
+        }
+
+        for (Rock rock : ROCKS) {
+            for (short colour : rock.getModifiedColours()) {
+                COLOUR_TO_ROCK_MASK[colour & 0xFFFF] |= 1 << rock.ordinal();
+            }
+        }
+    }
+
+    /**
+     * Builds a mask of the rock types that use at least one of the given colours.
+     *
+     * @return A bit mask indexed by rock ordinal; 0 if no rock type matches.
+     */
+    public static int getRockMask(short[] colours) {
+        if (colours == null) return 0;
+
+        int mask = 0;
+        for (short colour : colours) {
+            mask |= COLOUR_TO_ROCK_MASK[colour & 0xFFFF];
+        }
+        return mask;
+    }
+
+    /**
+     * Checks if any of the given colours belongs to the given rock type.
+     *
+     * @return True if one of the colours matches; false otherwise.
+     */
+    public static boolean matches(short[] colours, Rock type) {
+        if (colours == null) return false;
+
+        int typeBit = 1 << type.ordinal();
+        for (short colour : colours) {
+            if ((COLOUR_TO_ROCK_MASK[colour & 0xFFFF] & typeBit) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a rock object currently has the colours of the given rock type.
+     *
+     * @return True if the rock's colours match; false otherwise.
+     */
+    public static boolean matches(RSObject rock, Rock type) {
+        RSObjectDefinition rockDef = rock.getDefinition();
+        if (rockDef == null) return false;
+
+        return matches(rockDef.getModifiedColors(), type);
+    }
+
+    /**
+     * Determines which rock type a set of colours belongs to. If the colours are shared between several rock types,
+     * the one declared first in {@link Rock} is returned.
+     *
+     * @return The matching rock type, or null if there is none (e.g. the rock has been depleted).
+     */
+    public static Rock classify(short[] colours) {
+        int mask = getRockMask(colours);
+        if (mask == 0) return null;
+
+        return ROCKS[Integer.numberOfTrailingZeros(mask)];
+    }
+
+    /**
+     * Determines which rock type a rock object currently is.
+     *
+     * @return The matching rock type, or null if there is none.
+     */
+    public static Rock classify(RSObject rock) {
+        RSObjectDefinition rockDef = rock.getDefinition();
+        if (rockDef == null) return null;
+
+        return classify(rockDef.getModifiedColors());
+    }
+
+    /**
+     * Classifies every rock of an array in a single pass, writing the result for rocks[i] into types[i].
+     *
+     * @param rocks: the rocks to classify, e.g. the result of an Objects.findNearest call
+     * @param types: the output array; must be at least as long as rocks
+     *
+     * @return The number of rocks that matched a rock type.
+     */
+    public static int classifyAll(RSObject[] rocks, Rock[] types) {
+        int matched = 0;
+        for (int i = 0; i < rocks.length; i++) {
+            types[i] = classify(rocks[i]);
+            if (types[i] != null) matched++;
+        }
+        return matched;
+    }
+
+}
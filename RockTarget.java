@@ -0,0 +1,47 @@
+/**
+ * The RockTarget class describes a rock type the script may mine and what one of its ores is worth: the XP it gives,
+ * its GP value and the mining level needed to mine it. A session mines every rock type of its targets; see
+ * {@link RockTargets} for how it chooses between them.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public class RockTarget {
+
+    private final Rock type;        // the type of the rock
+    private final String oreName;   // the name of the rock's ore, e.g. "Tin ore"
+    private final double xp;        // the XP one ore gives
+    private final int gpValue;      // the GP one ore is worth
+    private final int level;        // the mining level needed to mine the rock
+
+    public RockTarget(Rock type, String oreName, double xp, int gpValue, int level) {
+        this.type = type;
+        this.oreName = oreName;
+        this.xp = xp;
+        this.gpValue = gpValue;
+        this.level = level;
+    }
+
+    public Rock getType() {
+        return type;
+    }
+
+    public String getOreName() {
+        return oreName;
+    }
+
+    public double getXp() {
+        return xp;
+    }
+
+    public int getGpValue() {
+        return gpValue;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+}
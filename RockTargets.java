@@ -0,0 +1,164 @@
+/**
+ * The RockTargets class chooses which rock a session mines next when it may mine several rock types. Every candidate
+ * rock is scored by the value of its ore divided by the time it is expected to take to get that ore: the walk to the
+ * rock plus how long a rock of its type usually takes to give its ore, which is learned as rocks are mined. Ores are
+ * valued by their XP, plus their GP value when they are banked rather than dropped. Rock types above the player's
+ * mining level are never chosen, and rocks other players have been mining lately (see {@link ContentionTracker}) are
+ * deprioritized, since they are likely to be depleted before the player gets their ore. Rocks a sibling bot has claimed
+ * on the {@link RockBoard} are never chosen.
+ *
+ * Scoring is a single pass over the rocks found by one search and does not allocate.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+public class RockTargets {
+
+    public static final int CONTENDER_DISTANCE = 15;        // the distance to observe other players within
+
+    private static final long DEFAULT_MINE_TIME = 3000;     // milliseconds per ore until a rock type has been timed
+    private static final double MINE_TIME_SMOOTHING = 0.1;  // weight of a new mine time in the moving average
+    private static final double TIME_PER_TILE = WorldSnapshot.TICK_LENGTH / 2.0; // running covers 2 tiles per tick
+    private static final double CONTESTED_PENALTY = 3;      // a rock's score is divided by 1 + this * contested score
+
+    private final RockTarget[] targets;
+    private final double[] values;          // the value of one ore, per target
+    private final double[] mineTimes;       // the expected milliseconds to get an ore, per target
+    private final String[] oreNames;
+    private final ContentionTracker contention;
+    private final RockBoard board;
+    private int miningLevel = Integer.MAX_VALUE;
+
+    public RockTargets(MiningConfig config, ContentionTracker contention, RockBoard board) {
+        this.contention = contention;
+        this.board = board;
+        targets = config.getTargets();
+        values = new double[targets.length];
+        mineTimes = new double[targets.length];
+        oreNames = new String[targets.length];
+
+        for (int i = 0; i < targets.length; i++) {
+            RockTarget target = targets[i];
+            values[i] = target.getXp() + (config.isBanking() ? target.getGpValue() * config.getGpWeight() : 0);
+            mineTimes[i] = DEFAULT_MINE_TIME;
+            oreNames[i] = target.getOreName();
+        }
+    }
+
+    /**
+     * Sets the player's mining level; targets that need a higher level are not chosen.
+     */
+    public void setMiningLevel(int miningLevel) {
+        this.miningLevel = miningLevel;
+    }
+
+    public int getMiningLevel() {
+        return miningLevel;
+    }
+
+    /**
+     * Records every target with the value of its ore, so a replay can score rocks as this session does.
+     */
+    public void recordTo(SessionRecorder recorder, long time) {
+        for (int i = 0; i < targets.length; i++) {
+            recorder.recordTarget(time, targets[i].getType(), targets[i].getLevel(), values[i]);
+        }
+    }
+
+    /**
+     * @return The ore names of every target, e.g. to count, drop or deposit the mined ores.
+     */
+    public String[] getOreNames() {
+        return oreNames;
+    }
+
+    /**
+     * @return The most valuable target the rock has the colours of, or null if it matches none (e.g. it is depleted).
+     */
+    public RockTarget getTarget(ObservedRock rock) {
+        int index = getTargetIndex(rock);
+        return index < 0 ? null : targets[index];
+    }
+
+    private int getTargetIndex(ObservedRock rock) {
+        int bestIndex = -1;
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i].getLevel() > miningLevel || !rock.isType(targets[i].getType())) continue;
+            if (bestIndex < 0 || values[i] > values[bestIndex]) bestIndex = i;
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Finds the rock with the highest ore value per expected millisecond to get its ore, after the penalty for being
+     * contested. Rocks claimed by a sibling bot are skipped. The other players within CONTENDER_DISTANCE should have
+     * been observed in the current tick.
+     *
+     * @param rocks: the rocks to choose from, in any order; null entries are skipped
+     * @param excludedRock: a rock that must not be chosen (e.g. the one being mined), or null
+     *
+     * @return The best rock, or null if none of the rocks is a target.
+     */
+    public ObservedRock getBestRock(ObservedRock[] rocks, ObservedRock excludedRock, RSTile position) {
+        int packedPosition = Tiles.pack(position);
+        int excludedTile = excludedRock == null ? -1 : excludedRock.getPackedTile();
+
+        ObservedRock bestRock = null;
+        double bestScore = 0;
+        for (ObservedRock rock : rocks) {
+            if (rock == null || rock.getPackedTile() == excludedTile) continue;
+            if (board.isClaimedBySibling(rock.getPackedTile())) continue;
+
+            int index = getTargetIndex(rock);
+            if (index < 0) continue;
+
+            int distanceSquared = Tiles.distanceSquared(packedPosition, rock.getPackedTile());
+            if (distanceSquared == Integer.MAX_VALUE) continue;
+
+            double score = values[index] / (Math.sqrt(distanceSquared) * TIME_PER_TILE + mineTimes[index])
+                    / (1 + CONTESTED_PENALTY * contention.getScore(rock.getPackedTile()));
+            if (score > bestScore) {
+                bestRock = rock;
+                bestScore = score;
+            }
+        }
+        return bestRock;
+    }
+
+    /**
+     * Finds the depleted rock that is expected to have the ore of a target again first.
+     *
+     * @return The rock that will respawn soonest, or null if none of the rocks is a depleted target.
+     */
+    public ObservedRock getSoonestRespawningRock(ObservedRock[] rocks, RespawnTracker respawns) {
+        ObservedRock soonestRock = null;
+        long soonestReadyAt = RespawnTracker.UNKNOWN;
+        for (RockTarget target : targets) {
+            if (target.getLevel() > miningLevel) continue;
+
+            ObservedRock rock = respawns.getSoonestRespawningRock(rocks, target.getType());
+            if (rock == null) continue;
+
+            long readyAt = respawns.getExpectedReadyAt(rock.getPosition(), target.getType());
+            if (soonestRock == null || readyAt < soonestReadyAt) {
+                soonestRock = rock;
+                soonestReadyAt = readyAt;
+            }
+        }
+        return soonestRock;
+    }
+
+    /**
+     * Records how long a rock of a type took to give its ore once it was clicked.
+     */
+    public void recordMineTime(Rock type, long mineTime) {
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i].getType() == type) mineTimes[i] += (mineTime - mineTimes[i]) * MINE_TIME_SMOOTHING;
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * This class watches the tiles of rocks that are being mined and signals when the object ID or colours at a watched
+ * tile change, so callers can react to a rock being depleted without sleep-polling the game client themselves. The
+ * tiles are polled every POLL_INTERVAL on a background thread, so a change is signalled at most that long after it
+ * happens; the polling only runs while a tile is watched.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+public class RockTileObserver {
+
+    // how often the watched tiles are checked; well below a game tick so a change is seen early in the tick
+    private static final long POLL_INTERVAL = 100;
+
+    private static class Watch {
+        private final ObservedRock rock;
+        private final CompletableFuture<ObservedRock> change = new CompletableFuture<>();
+
+        private Watch(ObservedRock rock) {
+            this.rock = rock;
+        }
+    }
+
+    private static final Map<Integer, Watch> watches = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService poller = null;
+    private static ScheduledFuture<?> polling = null;   // the scheduled polls, or null while no tile is watched
+
+    /**
+     * Starts watching a rock's tile. The returned future is completed with the new observation of the tile as soon as
+     * its object ID or colours differ from the given rock (or with null if the rock disappears). Watching the same tile
+     * again replaces the previous watch, which is cancelled.
+     *
+     * @return A future completed on the first change at the rock's tile.
+     */
+    public static CompletableFuture<ObservedRock> watch(ObservedRock rock) {
+        Watch watch = new Watch(rock);
+        Watch replaced;
+        synchronized (RockTileObserver.class) {
+            replaced = watches.put(rock.getPackedTile(), watch);
+            startPolling();
+        }
+        if (replaced != null) replaced.change.cancel(false);
+
+        return watch.change;
+    }
+
+    /**
+     * Stops watching a rock's tile and cancels its pending future.
+     */
+    public static void unwatch(ObservedRock rock) {
+        Watch watch = watches.remove(rock.getPackedTile());
+        stopPollingIfIdle();
+        if (watch != null) watch.change.cancel(false);
+    }
+
+    private static synchronized void startPolling() {
+        if (polling != null) return;
+
+        if (poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Rock Tile Observer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        polling = poller.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                pollWatchedTiles();
+            }
+        }, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels the polls once the last watch is removed. A watch added meanwhile schedules them again: both happen under
+     * the class lock, so a watch is never left without polls.
+     */
+    private static synchronized void stopPollingIfIdle() {
+        if (polling == null || !watches.isEmpty()) return;
+
+        polling.cancel(false);
+        polling = null;
+    }
+
+    /**
+     * Checks every watched tile once and signals the ones that have changed.
+     */
+    private static void pollWatchedTiles() {
+        for (Map.Entry<Integer, Watch> entry : watches.entrySet()) {
+            Watch watch = entry.getValue();
+            ObservedRock current;
+            try {
+                current = TribotWorldView.observeRockAt(watch.rock.getPosition());
+            } catch (RuntimeException e) {
+                // the client can fail mid-update (e.g. while loading a region) -> try again next poll
+                continue;
+            }
+
+            if (current != null && current.getId() == watch.rock.getId()
+                    && Arrays.equals(current.getColours(), watch.rock.getColours())) continue;
+
+            watches.remove(entry.getKey(), watch);
+            watch.change.complete(current);
+        }
+        stopPollingIfIdle();
+    }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * The RouteCache class keeps the routes walked between a mine and its bank, so later trips can walk a known route
+ * locally instead of asking the pathing service for one. Routes can be saved to a file so they outlive the script.
+ * One cache may be shared by several sessions.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSArea;
+import org.tribot.api2007.types.RSTile;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class RouteCache {
+
+    private final File file; // the file routes are saved to, or null to keep them in memory only
+    private final Map<String, RSTile[]> routes = new HashMap<>();
+
+    /**
+     * Creates a cache that only keeps routes in memory.
+     */
+    public RouteCache() {
+        this(null);
+    }
+
+    /**
+     * Creates a cache saved to a file, loading the routes already in it.
+     */
+    public RouteCache(File file) {
+        this.file = file;
+        if (file != null && file.exists()) load();
+    }
+
+    /**
+     * @return The key of the route from a mine to its bank.
+     */
+    public static String getToBankKey(RSArea mine) {
+        return getAreaKey(mine) + "->bank";
+    }
+
+    /**
+     * @return The key of the route from a bank to the mine.
+     */
+    public static String getToMineKey(RSArea mine) {
+        return "bank->" + getAreaKey(mine);
+    }
+
+    private static String getAreaKey(RSArea area) {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        int plane = 0;
+        for (RSTile tile : area.getAllTiles()) {
+            minX = Math.min(minX, tile.getX());
+            minY = Math.min(minY, tile.getY());
+            maxX = Math.max(maxX, tile.getX());
+            maxY = Math.max(maxY, tile.getY());
+            plane = tile.getPlane();
+        }
+        return minX + "," + minY + "," + maxX + "," + maxY + "," + plane;
+    }
+
+    /**
+     * @return The route with the given key, or null if none has been walked.
+     */
+    public synchronized RSTile[] get(String key) {
+        return routes.get(key);
+    }
+
+    public synchronized void put(String key, RSTile[] route) {
+        routes.put(key, route);
+        save();
+    }
+
+    public synchronized void remove(String key) {
+        if (routes.remove(key) != null) save();
+    }
+
+    private void load() {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            MiningLog.log(LogLevel.WARN, "Unable to load routes", file, e);
+            return;
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            String[] tiles = properties.getProperty(key).trim().split(" ");
+            RSTile[] route = new RSTile[tiles.length];
+            try {
+                for (int i = 0; i < tiles.length; i++) {
+                    String[] coordinates = tiles[i].split(",");
+                    route[i] = new RSTile(Integer.parseInt(coordinates[0]), Integer.parseInt(coordinates[1]),
+                            Integer.parseInt(coordinates[2]));
+                }
+            } catch (RuntimeException e) {
+                MiningLog.log(LogLevel.WARN, "Skipping malformed route", key);
+                continue;
+            }
+            routes.put(key, route);
+        }
+    }
+
+    private void save() {
+        if (file == null) return;
+
+        Properties properties = new Properties();
+        for (Map.Entry<String, RSTile[]> route : routes.entrySet()) {
+            StringBuilder tiles = new StringBuilder();
+            for (RSTile tile : route.getValue()) {
+                if (tiles.length() > 0) tiles.append(' ');
+                tiles.append(tile.getX()).append(',').append(tile.getY()).append(',').append(tile.getPlane());
+            }
+            properties.setProperty(route.getKey(), tiles.toString());
+        }
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, "Routes walked by the mining script");
+        } catch (IOException e) {
+            MiningLog.log(LogLevel.WARN, "Unable to save routes", file, e);
+        }
+    }
+
+}
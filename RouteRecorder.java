@@ -0,0 +1,53 @@
+/**
+ * The RouteRecorder class records the route of a walk. It is passed to a {@link Walker} as the walk's stop condition:
+ * every time the walker checks it, the player's position is added to the route, then the wrapped stop condition is
+ * asked whether the walk should end.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+public class RouteRecorder implements BooleanSupplier {
+
+    // tiles between two recorded positions; well within the minimap, so the route can be walked tile by tile
+    private static final int SPACING = 4;
+
+    private final WorldView world;
+    private final BooleanSupplier stopCondition;
+    private final List<RSTile> route = new ArrayList<>();
+
+    public RouteRecorder(WorldView world, BooleanSupplier stopCondition) {
+        this.world = world;
+        this.stopCondition = stopCondition;
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        record(world.getPlayerPosition(), SPACING);
+        return stopCondition.getAsBoolean();
+    }
+
+    private void record(RSTile position, int spacing) {
+        if (!route.isEmpty()) {
+            RSTile last = route.get(route.size() - 1);
+            if (last.getPlane() == position.getPlane() && last.distanceTo(position) < spacing) return;
+        }
+        route.add(position);
+    }
+
+    /**
+     * @return The tiles the player walked through so far, ending with the player's current position.
+     */
+    public RSTile[] getRoute() {
+        record(world.getPlayerPosition(), 1);
+        return route.toArray(new RSTile[0]);
+    }
+
+}
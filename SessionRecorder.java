@@ -0,0 +1,177 @@
+/**
+ * The SessionRecorder class records what a mining session sees and does into a memory-mapped ring file, so a drop in
+ * ores/hour can be investigated afterwards (see {@link SessionReplay}). Every record has the same RECORD_SIZE bytes:
+ *
+ *   long time | byte type | byte detail | short count | int tile | int value | long data | 4 bytes of padding
+ *
+ * Types and the meaning of their fields:
+ *
+ *   POSITION  the player's position (tile)
+ *   ROCK      a rock observation: tile, object ID (value), number of colours (count) and up to 4 colours (data)
+ *   TARGET    a rock type the session mines, when it starts: type ordinal (detail), level (value), value of one ore
+ *             as double bits (data)
+ *   CANDIDATE a rock the next SELECT chose from: tile, 1 if a sibling bot had claimed it (value), its contention score
+ *             as double bits (data)
+ *   SELECT    the rock chosen to mine next: tile, 1 if it was chosen without scoring the candidates (detail), e.g. the
+ *             only predetermined rock, and the player's mining level (value)
+ *   CLICK     a click on a rock: tile, 1 if it succeeded (value)
+ *   PHASE     a timed phase: phase ordinal (detail), 1 if it succeeded (value), start time (time), duration (data)
+ *   BANK_TRIP a completed bank trip: items banked (value), start time (time), duration (data)
+ *
+ * The file starts with a HEADER_SIZE byte header (magic, version, record size, capacity and the number of records
+ * written so far); once capacity records have been written, new records overwrite the oldest. Writing a record is a
+ * few puts into the mapped buffer, and the operating system writes the pages to disk, so a recording survives the
+ * script being stopped or crashing. Until it is started, the recorder ignores every record.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class SessionRecorder {
+
+    public static final int MAGIC = 0x4D52454B;  // "MREC"
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 32;
+
+    public static final byte POSITION = 1;
+    public static final byte ROCK = 2;
+    public static final byte SELECT = 3;
+    public static final byte CLICK = 4;
+    public static final byte PHASE = 5;
+    public static final byte BANK_TRIP = 6;
+    public static final byte TARGET = 7;
+    public static final byte CANDIDATE = 8;
+
+    public static final int MAX_COLOURS = 4;     // colours of a rock that fit in a record
+
+    private static final int WRITTEN_OFFSET = 16; // the header offset of the number of records written
+
+    private volatile MappedByteBuffer buffer = null; // the mapped file, or null until the recorder is started
+    private int capacity = 0;
+    private long written = 0;               // the number of records written so far
+    private int lastPosition = -1;          // the last player position recorded, packed
+
+    /**
+     * Creates (or overwrites) a recording file, maps it and starts recording into it.
+     *
+     * @param capacity: the number of records kept; at RECORD_SIZE bytes each, 1 << 20 records take 32 MB
+     */
+    public synchronized void start(File file, int capacity) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+            raf.setLength(size);
+
+            // the mapping stays valid after the file is closed
+            MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, VERSION);
+            mapped.putInt(8, RECORD_SIZE);
+            mapped.putInt(12, capacity);
+            mapped.putLong(WRITTEN_OFFSET, 0);
+
+            this.capacity = capacity;
+            this.written = 0;
+            this.lastPosition = -1;
+            this.buffer = mapped;
+        }
+    }
+
+    public boolean isEnabled() {
+        return buffer != null;
+    }
+
+    /**
+     * Records the player's position, unless it is the position recorded last.
+     */
+    public void recordPosition(long time, RSTile position) {
+        if (buffer == null) return;
+
+        int tile = Tiles.pack(position);
+        synchronized (this) {
+            if (tile == lastPosition) return;
+            lastPosition = tile;
+        }
+        write(time, POSITION, 0, 0, tile, 0, 0);
+    }
+
+    public void recordRock(long time, ObservedRock rock) {
+        if (buffer == null) return;
+
+        short[] colours = rock.getColours();
+        int count = colours == null ? 0 : Math.min(colours.length, MAX_COLOURS);
+        long data = 0;
+        for (int i = 0; i < count; i++) {
+            data |= (colours[i] & 0xFFFFL) << (16 * i);
+        }
+        write(time, ROCK, 0, count, rock.getPackedTile(), rock.getId(), data);
+    }
+
+    public void recordTarget(long time, Rock type, int level, double value) {
+        if (buffer == null) return;
+        write(time, TARGET, type.ordinal(), 0, 0, level, Double.doubleToRawLongBits(value));
+    }
+
+    public void recordCandidate(long time, ObservedRock rock, boolean claimedBySibling, double contention) {
+        if (buffer == null) return;
+        write(time, CANDIDATE, 0, 0, rock.getPackedTile(), claimedBySibling ? 1 : 0,
+                Double.doubleToRawLongBits(contention));
+    }
+
+    /**
+     * @param scored: true if the rock was chosen by scoring the candidates recorded before it, false if it was chosen
+     *              without them (e.g. the only predetermined rock)
+     */
+    public void recordSelect(long time, ObservedRock rock, boolean scored, int miningLevel) {
+        if (buffer == null) return;
+        write(time, SELECT, scored ? 0 : 1, 0, rock.getPackedTile(), miningLevel, 0);
+    }
+
+    public void recordClick(long time, ObservedRock rock, boolean succeeded) {
+        if (buffer == null) return;
+        write(time, CLICK, 0, 0, rock.getPackedTile(), succeeded ? 1 : 0, 0);
+    }
+
+    public void recordPhase(MiningPhase phase, long startTime, long endTime, boolean succeeded) {
+        if (buffer == null) return;
+        write(startTime, PHASE, phase.ordinal(), 0, 0, succeeded ? 1 : 0, endTime - startTime);
+    }
+
+    public void recordBankTrip(long startTime, long endTime, int itemsBanked) {
+        if (buffer == null) return;
+        write(startTime, BANK_TRIP, 0, 0, 0, itemsBanked, endTime - startTime);
+    }
+
+    private synchronized void write(long time, byte type, int detail, int count, int tile, int value, long data) {
+        MappedByteBuffer buffer = this.buffer;
+        int offset = HEADER_SIZE + (int) (written % capacity) * RECORD_SIZE;
+        buffer.putLong(offset, time);
+        buffer.put(offset + 8, type);
+        buffer.put(offset + 9, (byte) detail);
+        buffer.putShort(offset + 10, (short) count);
+        buffer.putInt(offset + 12, tile);
+        buffer.putInt(offset + 16, value);
+        buffer.putLong(offset + 20, data);
+
+        // published after the record, so a reader never sees a count that includes a half-written record
+        written++;
+        buffer.putLong(WRITTEN_OFFSET, written);
+    }
+
+    /**
+     * @return The number of records written so far, including those overwritten since.
+     */
+    public synchronized long getWritten() {
+        return written;
+    }
+
+}
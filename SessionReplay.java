@@ -0,0 +1,279 @@
+/**
+ * This class reads back a recording made by {@link SessionRecorder}, without a game client. It reports what the
+ * session did (the phases with their durations and failures, the clicks, the bank trips) and how long the session took
+ * to click the next rock after the last one was depleted. It also runs the targeting code again: at every rock
+ * selection it runs RockTargets.getBestRock on the candidates the session chose from, times it, and counts how often
+ * the replayed choice differs from the recorded one, so targeting changes can be checked against real recordings
+ * offline. The targets are rebuilt from the recorded ones (types,
+ * levels and ore values), the mining level from the recorded selections, and the candidates keep the sibling claims
+ * and contention scores the session saw; selections made without scoring (e.g. of the only predetermined rock) are not
+ * compared.
+ *
+ * Usage: SessionReplay recording [ROCK_TYPE ...] (the rock types mined when recording, for recordings that do not hold
+ * their targets; TIN by default)
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SessionReplay {
+
+    private static final RSTile NO_POSITION = new RSTile(0, 0, 0);
+
+    private final Rock[] defaultTypes;    // the types mined when the recording holds no targets
+    private final List<RockTarget> recordedTargets = new ArrayList<>(); // valued by their XP alone, see TARGET
+    private RockTargets targets = null; // built at the first selection, from the recorded targets or defaultTypes
+
+    // the contention scores of the candidates of the next selection, as the session saw them
+    private final Map<Integer, Double> contentionScores = new HashMap<>();
+    private final ContentionTracker contention = new ContentionTracker(new TribotClock()) {
+        @Override
+        public synchronized double getScore(int packedTile) {
+            Double score = contentionScores.get(packedTile);
+            return score == null ? 0 : score;
+        }
+    };
+
+    private RSTile position = NO_POSITION;
+    private final Map<Integer, ObservedRock> rocks = new LinkedHashMap<>(); // the last observation of every rock tile
+    private final List<ObservedRock> candidates = new ArrayList<>(); // the rocks the next selection chooses from
+    private long depletedAt = -1;   // when the last rock being mined was depleted, or -1 if a rock was clicked since
+    private Rock selectedType = null;   // the type of the rock selected last, or null if it is not a target
+    private long animationStart = -1;   // when the session last waited for the mining animation
+
+    private final LatencyHistogram[] phaseDurations = new LatencyHistogram[MiningPhase.values().length];
+    private final long[] phaseFailures = new long[MiningPhase.values().length];
+    private final LatencyHistogram reactionTimes = new LatencyHistogram(); // ms from a depletion to the next click
+    private final LatencyHistogram bankTrips = new LatencyHistogram();
+    private final LatencyHistogram bestRockTimes = new LatencyHistogram();     // nanoseconds per call
+    private long records = 0;
+    private long clicks = 0;
+    private long failedClicks = 0;
+    private long itemsBanked = 0;
+    private long selections = 0;
+    private long differentSelections = 0;
+    private long unscoredSelections = 0;  // selections of a rock the session did not choose by scoring
+
+    /**
+     * @param defaultTypes: the rock types mined when recording, used only if the recording does not hold its targets
+     */
+    public SessionReplay(Rock[] defaultTypes) {
+        this.defaultTypes = defaultTypes;
+
+        for (int i = 0; i < phaseDurations.length; i++) {
+            phaseDurations[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Replays every record still in a recording, from the oldest to the newest.
+     *
+     * @throws IOException if the file cannot be read or is not a recording of a supported version
+     */
+    public void replay(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (raf.length() < SessionRecorder.HEADER_SIZE || buffer.getInt(0) != SessionRecorder.MAGIC) {
+                throw new IOException(file + " is not a session recording");
+            }
+            // version 1 recordings hold no targets or candidates; their selections are replayed on the rocks seen
+            int version = buffer.getInt(4);
+            if (version < 1 || version > SessionRecorder.VERSION
+                    || buffer.getInt(8) != SessionRecorder.RECORD_SIZE) {
+                throw new IOException("Unsupported session recording version " + buffer.getInt(4));
+            }
+
+            int capacity = buffer.getInt(12);
+            long written = buffer.getLong(16);
+            for (long i = Math.max(0, written - capacity); i < written; i++) {
+                int offset = SessionRecorder.HEADER_SIZE + (int) (i % capacity) * SessionRecorder.RECORD_SIZE;
+                replayRecord(buffer.getLong(offset), buffer.get(offset + 8), buffer.get(offset + 9),
+                        buffer.getShort(offset + 10), buffer.getInt(offset + 12), buffer.getInt(offset + 16),
+                        buffer.getLong(offset + 20));
+            }
+        }
+    }
+
+    private void replayRecord(long time, byte type, int detail, int count, int tile, int value, long data) {
+        records++;
+        switch (type) {
+            case SessionRecorder.POSITION:
+                position = Tiles.unpack(tile);
+                break;
+
+            case SessionRecorder.ROCK:
+                short[] colours = count == 0 ? null : new short[count];
+                for (int i = 0; i < count; i++) {
+                    colours[i] = (short) (data >>> (16 * i));
+                }
+                rocks.put(tile, new ObservedRock(null, Tiles.unpack(tile), value, colours));
+                break;
+
+            case SessionRecorder.TARGET:
+                // the recorded value of the ore already includes its GP value if the session banked
+                Rock targetType = Rock.values()[detail];
+                recordedTargets.add(new RockTarget(targetType, targetType.name(), Double.longBitsToDouble(data), 0,
+                        value));
+                break;
+
+            case SessionRecorder.CANDIDATE:
+                ObservedRock candidate = rocks.get(tile);
+                // a rock a sibling bot had claimed could not be chosen
+                if (candidate != null && value == 0) {
+                    candidates.add(candidate);
+                    contentionScores.put(tile, Double.longBitsToDouble(data));
+                }
+                break;
+
+            case SessionRecorder.SELECT:
+                replaySelection(tile, detail == 0, value);
+                candidates.clear();
+                contentionScores.clear();
+                break;
+
+            case SessionRecorder.CLICK:
+                clicks++;
+                if (value == 0) failedClicks++;
+                if (depletedAt >= 0) reactionTimes.record(time - depletedAt);
+                depletedAt = -1;
+                break;
+
+            case SessionRecorder.PHASE:
+                phaseDurations[detail].record(data);
+                if (value == 0) phaseFailures[detail]++;
+                // the rocks seen on the last world are not on this one
+                if (detail == MiningPhase.HOP.ordinal() && value != 0) rocks.clear();
+                if (detail == MiningPhase.WAIT_FOR_ANIMATION.ordinal()) animationStart = time;
+                if (detail == MiningPhase.WAIT_FOR_DEPLETION.ordinal() && value != 0) {
+                    depletedAt = time + data;
+                    // the session learns mine times as in RSRock.mine, and scores the next selection with them
+                    if (selectedType != null) targets.recordMineTime(selectedType, depletedAt - animationStart);
+                } else if (depletedAt >= 0 && time >= depletedAt && isInventoryPhase(detail)) {
+                    // the inventory was full: the time to the next click is not spent choosing a rock
+                    depletedAt = -1;
+                }
+                break;
+
+            case SessionRecorder.BANK_TRIP:
+                bankTrips.record(data);
+                itemsBanked += value;
+                break;
+
+            default:
+                throw new IllegalStateException("Unknown record type " + type);
+        }
+    }
+
+    private static boolean isInventoryPhase(int phase) {
+        return phase == MiningPhase.DROP.ordinal() || phase == MiningPhase.WALK_TO_BANK.ordinal()
+                || phase == MiningPhase.BANK.ordinal() || phase == MiningPhase.WALK_TO_MINE.ordinal();
+    }
+
+    /**
+     * Runs the targeting code on the recorded candidates (on the rocks seen so far in recordings without candidates),
+     * as the session did when it selected the rock at recordedTile.
+     *
+     * @param scored: false if the session chose the rock without scoring the candidates, so there is no choice to
+     *              compare
+     */
+    private void replaySelection(int recordedTile, boolean scored, int miningLevel) {
+        if (targets == null) targets = createTargets();
+        if (miningLevel > 0) targets.setMiningLevel(miningLevel);
+
+        ObservedRock[] seenRocks = candidates.isEmpty()
+                ? rocks.values().toArray(new ObservedRock[0]) : candidates.toArray(new ObservedRock[0]);
+        selections++;
+
+        long start = System.nanoTime();
+        ObservedRock bestRock = targets.getBestRock(seenRocks, null, position);
+        bestRockTimes.record(System.nanoTime() - start);
+        if (scored && (bestRock == null || bestRock.getPackedTile() != recordedTile)) differentSelections++;
+        if (!scored) unscoredSelections++;
+
+        ObservedRock selectedRock = rocks.get(recordedTile);
+        RockTarget selectedTarget = selectedRock == null ? null : targets.getTarget(selectedRock);
+        selectedType = selectedTarget == null ? null : selectedTarget.getType();
+    }
+
+    /**
+     * Builds the targets from the recorded ones, with the value of their ores, or from the default types if the
+     * recording holds none (a version 1 recording, or one whose target records were overwritten).
+     */
+    private RockTargets createTargets() {
+        RockTarget[] rockTargets;
+        if (recordedTargets.isEmpty()) {
+            rockTargets = new RockTarget[defaultTypes.length];
+            for (int i = 0; i < defaultTypes.length; i++) {
+                rockTargets[i] = new RockTarget(defaultTypes[i], defaultTypes[i].name(), 1, 0, 1);
+            }
+        } else {
+            rockTargets = recordedTargets.toArray(new RockTarget[0]);
+        }
+
+        MiningConfig config = new MiningConfig(null, null);
+        config.setTargets(rockTargets);
+        return new RockTargets(config, contention, new RockBoard(new TribotClock()));
+    }
+
+    public void printReport() {
+        System.out.println(String.format("%d records, %d clicks (%d failed), %d bank trips (%d items banked)",
+                records, clicks, failedClicks, bankTrips.getCount(), itemsBanked));
+
+        System.out.println(String.format("%-20s %8s %8s %10s %10s %10s", "Phase", "Count", "Failed", "Mean ms",
+                "p99 ms", "Max ms"));
+        for (MiningPhase phase : MiningPhase.values()) {
+            LatencyHistogram durations = phaseDurations[phase.ordinal()];
+            if (durations.getCount() == 0) continue;
+            System.out.println(String.format("%-20s %8d %8d %10.1f %10d %10d", phase, durations.getCount(),
+                    phaseFailures[phase.ordinal()], durations.getMean(), durations.getPercentile(99),
+                    durations.getMax()));
+        }
+        printLatencies("Depletion to click", reactionTimes, "ms");
+        printLatencies("Bank trip", bankTrips, "ms");
+
+        System.out.println(String.format("%d selections replayed (%d not scored), %d chose another rock than recorded",
+                selections, unscoredSelections, differentSelections));
+        printLatencies("getBestRock", bestRockTimes, "ns");
+    }
+
+    private static void printLatencies(String name, LatencyHistogram histogram, String unit) {
+        if (histogram.getCount() == 0) return;
+        System.out.println(String.format("%-24s n=%d mean=%.1f p50=%d p99=%d max=%d %s", name, histogram.getCount(),
+                histogram.getMean(), histogram.getPercentile(50), histogram.getPercentile(99), histogram.getMax(),
+                unit));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: SessionReplay recording [ROCK_TYPE ...]");
+            System.exit(2);
+        }
+
+        MiningLog.setStandardOutput();
+
+        Rock[] types = new Rock[Math.max(1, args.length - 1)];
+        types[0] = Rock.TIN;
+        for (int i = 1; i < args.length; i++) {
+            types[i - 1] = Rock.valueOf(args[i]);
+        }
+
+        SessionReplay replay = new SessionReplay(types);
+        replay.replay(new File(args[0]));
+        replay.printReport();
+    }
+
+}
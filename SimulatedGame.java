@@ -0,0 +1,747 @@
+/**
+ * The SimulatedGame class is a deterministic, in-memory stand-in for the game client. It implements every part of the
+ * game API used by the mining logic on a virtual clock that only advances when the mining logic sleeps or waits, so a
+ * mining session can be run (and measured) for hours of game time in seconds, without a client.
+ *
+ * The world is updated once per game tick: depleted rocks respawn after their respawn time, and a player who is mining
+ * a rock has a fixed chance each tick to get an ore, which depletes the rock. Walking, dropping and banking take time
+ * proportional to what they do in game. The player walks TILES_PER_TICK tiles per tick; asking the pathing service
+ * for a path and settling at the end of a walk take extra time, as they do with a real walker.
+ *
+ * Other players can be added to compete for the rocks: each one mines a random rock with ore, then idles for a few
+ * ticks before picking the next. Other worlds can be added with their own number of other players; hopping to one
+ * takes HOP_TIME and finds every rock in a random state.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+public class SimulatedGame implements WorldView, InventoryView, BankView, Mouse, Walker, GameClock {
+
+    public static final int MINING_ANIMATION = 625;
+
+    private static final int INVENTORY_SIZE = 28;
+    private static final int TILES_PER_TICK = 2;      // running speed
+    private static final int SCREEN_DISTANCE = 15;    // rocks further away than this are not on screen
+    private static final int BANK_RADIUS = 5;         // the player is in the bank within this distance of the bank tile
+    private static final long WAIT_POLL_INTERVAL = 20;
+    private static final int PATHING_TIME_MIN = 400;  // a request to the pathing service, in milliseconds
+    private static final int PATHING_TIME_MAX = 1200;
+    private static final long WALK_SETTLE_TIME = 600; // a walker waits for the player to stop at its destination
+    private static final long HOP_TIME = 6000;        // logging out, choosing the world and logging back in
+
+    private static class SimulatedRock {
+        private final RSTile position;
+        private final Rock type;
+        private final String oreName;
+        private final int oreId;
+        private final int depletedId;
+        private final long respawnTime;
+        private final double successChance;
+
+        private boolean hasOre = true;
+        private long respawnAt = -1;
+
+        private SimulatedRock(RSTile position, Rock type, String oreName, int oreId, long respawnTime,
+                              double successChance) {
+            this.position = position;
+            this.type = type;
+            this.oreName = oreName;
+            this.oreId = oreId;
+            this.depletedId = oreId + 1;
+            this.respawnTime = respawnTime;
+            this.successChance = successChance;
+        }
+    }
+
+    private static class OtherPlayer {
+        private RSTile position;
+        private SimulatedRock target = null; // the rock the player is mining or walking to, or null if idle
+        private long miningStartsAt = -1;
+        private long idleUntil = 0;
+        private RockBoard board = null;      // the board the player claims rocks on if a sibling bot, or null
+
+        private OtherPlayer(RSTile position) {
+            this.position = position;
+        }
+    }
+
+    private static class Watch {
+        private final ObservedRock rock;
+        private final CompletableFuture<ObservedRock> change = new CompletableFuture<>();
+
+        private Watch(ObservedRock rock) {
+            this.rock = rock;
+        }
+    }
+
+    private final Random random;
+    private final RSTile bankTile;
+
+    private final List<SimulatedRock> rocks = new ArrayList<>();
+    private final Map<Integer, SimulatedRock> rocksByTile = new HashMap<>();
+    private final Map<Integer, Watch> watches = new HashMap<>();
+    private final List<OtherPlayer> otherPlayers = new ArrayList<>();
+    private final Map<Integer, Integer> crowds = new HashMap<>(); // the number of other players on every world
+    private final Map<String, Integer> inventory = new LinkedHashMap<>();
+    private final List<CompletableFuture<Integer>> itemCountWatches = new ArrayList<>();
+
+    private long now = 0;
+    private int world = 1;
+    private File siblingBoardFile = null;   // the board the other players share as sibling bots, or null
+    private RSTile playerPosition;
+    private int itemCount = 0;
+    private int miningLevel = 99;
+    private boolean bankScreenOpen = false;
+
+    private int cursorTile = -1;                // the packed tile of the rock the cursor is on, or -1
+    private SimulatedRock miningTarget = null;  // the rock the player clicked, or null if they are not mining
+    private long miningStartsAt = -1;           // when the player arrives next to the rock and starts mining it
+
+    private int oresMined = 0;
+    private int otherPlayersOresMined = 0;
+    private final Map<String, Integer> oresMinedByName = new HashMap<>();
+    private int clicks = 0;
+    private int bankTrips = 0;
+
+    /**
+     * @param seed: the seed of every random number used by the simulation
+     * @param playerPosition: where the player starts
+     * @param bankTile: the tile the player walks to when walking to the bank
+     * */
+    public SimulatedGame(long seed, RSTile playerPosition, RSTile bankTile) {
+        this.random = new Random(seed);
+        this.playerPosition = playerPosition;
+        this.bankTile = bankTile;
+    }
+
+    /**
+     * Adds a rock to the simulated world.
+     *
+     * @param respawnTime: how long the rock takes to respawn after being depleted, in milliseconds
+     * @param successChance: the chance per tick of mining an ore from the rock
+     * */
+    public void addRock(RSTile position, Rock type, String oreName, int oreId, long respawnTime,
+                        double successChance) {
+        SimulatedRock rock = new SimulatedRock(position, type, oreName, oreId, respawnTime, successChance);
+        rocks.add(rock);
+        rocksByTile.put(Tiles.pack(position), rock);
+    }
+
+    /**
+     * Adds another player, who competes with the player for the rocks.
+     * */
+    public void addOtherPlayer(RSTile position) {
+        otherPlayers.add(createOtherPlayer(position));
+    }
+
+    /**
+     * Makes the other players sibling bots of the player, sharing a {@link RockBoard} file: each of them claims the
+     * rock it mines on the board and skips the rocks claimed by the others, the player included.
+     *
+     * @throws UncheckedIOException if the board file cannot be joined
+     * */
+    public void joinSiblings(File boardFile) {
+        siblingBoardFile = boardFile;
+        for (OtherPlayer player : otherPlayers) {
+            player.board = createBoard();
+        }
+    }
+
+    private OtherPlayer createOtherPlayer(RSTile position) {
+        OtherPlayer player = new OtherPlayer(position);
+        if (siblingBoardFile != null) player.board = createBoard();
+        return player;
+    }
+
+    private RockBoard createBoard() {
+        RockBoard board = new RockBoard(this);
+        try {
+            board.join(siblingBoardFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        board.setWorld(world);
+        return board;
+    }
+
+    /**
+     * Adds a world the player can hop to, with its own number of other players mining there.
+     * */
+    public void addWorld(int world, int otherPlayers) {
+        crowds.put(world, otherPlayers);
+    }
+
+    public void setMiningLevel(int miningLevel) {
+        this.miningLevel = miningLevel;
+    }
+
+    public int getOresMined() {
+        return oresMined;
+    }
+
+    /**
+     * @return The number of ores with the given name mined so far.
+     */
+    public int getOresMined(String oreName) {
+        Integer mined = oresMinedByName.get(oreName);
+        return mined == null ? 0 : mined;
+    }
+
+    public int getClicks() {
+        return clicks;
+    }
+
+    public int getBankTrips() {
+        return bankTrips;
+    }
+
+    /**
+     * @return The number of ores mined per hour of simulated time.
+     */
+    public double getOresPerHour() {
+        if (now == 0) return 0;
+        return oresMined * 3600000.0 / now;
+    }
+
+    /**
+     * @return The number of ores the other players mined per hour of simulated time, e.g. to compare how many ores a
+     * group of sibling bots mines between.
+     */
+    public double getOtherPlayersOresPerHour() {
+        if (now == 0) return 0;
+        return otherPlayersOresMined * 3600000.0 / now;
+    }
+
+    // Simulation ------------------------------------------------------------------------------------------------------
+
+    /**
+     * Advances the virtual clock, updating the world on every tick boundary passed along the way.
+     */
+    public void advanceTo(long time) {
+        long nextTick = (now / WorldSnapshot.TICK_LENGTH + 1) * WorldSnapshot.TICK_LENGTH;
+        while (nextTick <= time) {
+            now = nextTick;
+            processTick();
+            nextTick += WorldSnapshot.TICK_LENGTH;
+        }
+        if (time > now) now = time;
+    }
+
+    private void processTick() {
+        for (SimulatedRock rock : rocks) {
+            if (!rock.hasOre && rock.respawnAt <= now) {
+                rock.hasOre = true;
+                onRockChanged(rock);
+            }
+        }
+
+        for (OtherPlayer player : otherPlayers) {
+            processOtherPlayer(player);
+        }
+
+        if (miningTarget == null || now < miningStartsAt) return;
+
+        if (!miningTarget.hasOre || itemCount >= INVENTORY_SIZE) {
+            miningTarget = null;
+            return;
+        }
+
+        if (random.nextDouble() < miningTarget.successChance) {
+            addItem(miningTarget.oreName, 1);
+            oresMined++;
+            Integer minedOfName = oresMinedByName.get(miningTarget.oreName);
+            oresMinedByName.put(miningTarget.oreName, minedOfName == null ? 1 : minedOfName + 1);
+
+            deplete(miningTarget);
+            miningTarget = null;
+        }
+    }
+
+    private void processOtherPlayer(OtherPlayer player) {
+        if (player.target != null && !player.target.hasOre) {
+            if (player.board != null) player.board.observe(observe(player.target));
+            player.target = null;
+            player.idleUntil = now + (1 + random.nextInt(3)) * WorldSnapshot.TICK_LENGTH;
+        }
+
+        if (player.target == null) {
+            if (now < player.idleUntil) return;
+
+            List<SimulatedRock> rocksWithOre = new ArrayList<>();
+            for (SimulatedRock rock : rocks) {
+                if (!rock.hasOre) continue;
+                if (player.board != null && player.board.isClaimedBySibling(Tiles.pack(rock.position))) continue;
+                rocksWithOre.add(rock);
+            }
+            if (rocksWithOre.isEmpty()) return;
+
+            SimulatedRock rock = rocksWithOre.get(random.nextInt(rocksWithOre.size()));
+            if (player.board != null && !player.board.claim(Tiles.pack(rock.position))) return;
+            RSTile adjacentTile = rock.position.translate(0, -1);
+            int ticks = (player.position.distanceTo(adjacentTile) + TILES_PER_TICK - 1) / TILES_PER_TICK;
+            player.miningStartsAt = now + (long) ticks * WorldSnapshot.TICK_LENGTH;
+            player.position = adjacentTile;
+            player.target = rock;
+            return;
+        }
+
+        if (player.board != null) player.board.claim(Tiles.pack(player.target.position));
+        if (now >= player.miningStartsAt && random.nextDouble() < player.target.successChance) {
+            otherPlayersOresMined++;
+            deplete(player.target);
+        }
+    }
+
+    private void deplete(SimulatedRock rock) {
+        rock.hasOre = false;
+        rock.respawnAt = now + rock.respawnTime;
+        onRockChanged(rock);
+    }
+
+    private void onRockChanged(SimulatedRock rock) {
+        Watch watch = watches.remove(Tiles.pack(rock.position));
+        if (watch != null) watch.change.complete(observe(rock));
+    }
+
+    private ObservedRock observe(SimulatedRock rock) {
+        if (rock.hasOre) return new ObservedRock(null, rock.position, rock.oreId, rock.type.getModifiedColours());
+        return new ObservedRock(null, rock.position, rock.depletedId, null);
+    }
+
+    private void addItem(String name, int amount) {
+        Integer count = inventory.get(name);
+        inventory.put(name, count == null ? amount : count + amount);
+        itemCount += amount;
+        onInventoryChanged();
+    }
+
+    private void onInventoryChanged() {
+        for (CompletableFuture<Integer> watch : itemCountWatches) {
+            watch.complete(itemCount);
+        }
+        itemCountWatches.clear();
+    }
+
+    /**
+     * Moves the player towards a tile one tick at a time, checking the stop condition after every tick.
+     *
+     * @param stopCondition: the walk's stop condition, or null
+     *
+     * @return True if the stop condition ended the walk before the tile was reached, false otherwise.
+     */
+    private boolean walkTowards(RSTile tile, BooleanSupplier stopCondition) {
+        miningTarget = null;
+        bankScreenOpen = false;
+
+        while (playerPosition.getX() != tile.getX() || playerPosition.getY() != tile.getY()) {
+            int dx = Math.max(-TILES_PER_TICK, Math.min(TILES_PER_TICK, tile.getX() - playerPosition.getX()));
+            int dy = Math.max(-TILES_PER_TICK, Math.min(TILES_PER_TICK, tile.getY() - playerPosition.getY()));
+            playerPosition = playerPosition.translate(dx, dy);
+            sleep(WorldSnapshot.TICK_LENGTH);
+
+            if (stopCondition != null && stopCondition.getAsBoolean()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The player's position if they are next to a side of the rock, or else the tile next to the rock nearest
+     * to them (south of the rock on ties).
+     */
+    private RSTile getMiningTile(RSTile rockPosition) {
+        RSTile[] sides = {rockPosition.translate(0, -1), rockPosition.translate(-1, 0), rockPosition.translate(0, 1),
+                rockPosition.translate(1, 0)};
+        RSTile nearest = sides[0];
+        for (RSTile side : sides) {
+            if (side.equals(playerPosition)) return side;
+            if (side.distanceToDouble(playerPosition) < nearest.distanceToDouble(playerPosition)) nearest = side;
+        }
+        return nearest;
+    }
+
+    private long getWalkTime(RSTile destination) {
+        int ticks = (playerPosition.distanceTo(destination) + TILES_PER_TICK - 1) / TILES_PER_TICK;
+        return (long) ticks * WorldSnapshot.TICK_LENGTH;
+    }
+
+    // WorldView -------------------------------------------------------------------------------------------------------
+
+    @Override
+    public RSTile getPlayerPosition() {
+        return playerPosition;
+    }
+
+    @Override
+    public int getPlayerAnimation() {
+        if (miningTarget != null && now >= miningStartsAt) return MINING_ANIMATION;
+        return -1;
+    }
+
+    @Override
+    public int getMiningLevel() {
+        return miningLevel;
+    }
+
+    @Override
+    public ObservedRock[] findNearestRocks(int distance) {
+        List<SimulatedRock> nearestRocks = new ArrayList<>();
+        for (SimulatedRock rock : rocks) {
+            if (rock.position.distanceTo(playerPosition) > distance) continue;
+
+            // insertion keeps the rocks sorted by distance, with ties in the order they were added
+            int index = nearestRocks.size();
+            while (index > 0 && nearestRocks.get(index - 1).position.distanceTo(playerPosition)
+                    > rock.position.distanceTo(playerPosition)) {
+                index--;
+            }
+            nearestRocks.add(index, rock);
+        }
+
+        ObservedRock[] observedRocks = new ObservedRock[nearestRocks.size()];
+        for (int i = 0; i < observedRocks.length; i++) {
+            observedRocks[i] = observe(nearestRocks.get(i));
+        }
+        return observedRocks;
+    }
+
+    @Override
+    public ObservedPlayer[] findOtherPlayers(int distance) {
+        List<ObservedPlayer> players = new ArrayList<>();
+        for (OtherPlayer player : otherPlayers) {
+            if (player.position.distanceTo(playerPosition) > distance) continue;
+
+            // players stand south of the rock they mine, so they face north
+            boolean mining = player.target != null && now >= player.miningStartsAt;
+            players.add(new ObservedPlayer(player.position, 1024, mining ? MINING_ANIMATION : -1));
+        }
+        return players.toArray(new ObservedPlayer[0]);
+    }
+
+    @Override
+    public ObservedRock getRockAt(RSTile tile) {
+        SimulatedRock rock = rocksByTile.get(Tiles.pack(tile));
+        return rock == null ? null : observe(rock);
+    }
+
+    @Override
+    public boolean isOnScreen(ObservedRock rock) {
+        return rock.getPosition().distanceTo(playerPosition) <= SCREEN_DISTANCE;
+    }
+
+    @Override
+    public CompletableFuture<ObservedRock> watchRock(ObservedRock rock) {
+        Watch watch = new Watch(rock);
+        Watch replaced = watches.put(rock.getPackedTile(), watch);
+        if (replaced != null) replaced.change.cancel(false);
+
+        // the rock may already have changed since it was observed
+        SimulatedRock simulatedRock = rocksByTile.get(rock.getPackedTile());
+        if (simulatedRock == null) {
+            watches.remove(rock.getPackedTile());
+            watch.change.complete(null);
+        } else if (observe(simulatedRock).getId() != rock.getId()) {
+            watches.remove(rock.getPackedTile());
+            watch.change.complete(observe(simulatedRock));
+        }
+
+        return watch.change;
+    }
+
+    @Override
+    public void unwatchRock(ObservedRock rock) {
+        Watch watch = watches.remove(rock.getPackedTile());
+        if (watch != null) watch.change.cancel(false);
+    }
+
+    // InventoryView ---------------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean isFull() {
+        return itemCount >= INVENTORY_SIZE;
+    }
+
+    @Override
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    @Override
+    public int getCount(String... names) {
+        int count = 0;
+        for (String name : names) {
+            Integer nameCount = inventory.get(name);
+            if (nameCount != null) count += nameCount;
+        }
+        return count;
+    }
+
+    @Override
+    public int drop(String... names) {
+        int dropped = 0;
+        for (String name : names) {
+            Integer count = inventory.remove(name);
+            if (count == null) continue;
+
+            // dropping takes roughly half a tick per item
+            for (int i = 0; i < count; i++) {
+                sleep(250, 350);
+            }
+            itemCount -= count;
+            dropped += count;
+        }
+        if (dropped > 0) {
+            cursorTile = -1; // the cursor is on the inventory
+            onInventoryChanged();
+        }
+        return dropped;
+    }
+
+    @Override
+    public boolean dropOne(String... names) {
+        for (String name : names) {
+            if (!inventory.containsKey(name)) continue;
+
+            // the player keeps mining meanwhile, so the count is read once the item is dropped
+            sleep(250, 350);
+            int count = inventory.get(name);
+            if (count == 1) {
+                inventory.remove(name);
+            } else {
+                inventory.put(name, count - 1);
+            }
+            itemCount--;
+            cursorTile = -1;
+            onInventoryChanged();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public CompletableFuture<Integer> watchItemCount() {
+        CompletableFuture<Integer> watch = new CompletableFuture<>();
+        itemCountWatches.add(watch);
+        return watch;
+    }
+
+    // BankView --------------------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean isInBank() {
+        return playerPosition.distanceTo(bankTile) <= BANK_RADIUS;
+    }
+
+    @Override
+    public boolean isBankScreenOpen() {
+        return bankScreenOpen;
+    }
+
+    @Override
+    public boolean openBank() {
+        if (!isInBank()) return false;
+
+        // the player walks the last steps to the booth, then the bank opens
+        walkTowards(bankTile, null);
+        sleep(1200, 2400);
+        bankScreenOpen = true;
+        return true;
+    }
+
+    @Override
+    public int depositAll() {
+        if (!bankScreenOpen) return 0;
+
+        sleep(600, 900);
+        int deposited = itemCount;
+        inventory.clear();
+        itemCount = 0;
+        if (deposited > 0) {
+            bankTrips++;
+            onInventoryChanged();
+        }
+        return deposited;
+    }
+
+    @Override
+    public boolean close() {
+        bankScreenOpen = false;
+        return true;
+    }
+
+    // Mouse -----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean hover(ObservedRock rock) {
+        if (!rocksByTile.containsKey(rock.getPackedTile())) return false;
+
+        sleep(50, 150);
+        cursorTile = rock.getPackedTile();
+        return true;
+    }
+
+    @Override
+    public boolean isOn(ObservedRock rock) {
+        return cursorTile == rock.getPackedTile();
+    }
+
+    @Override
+    public boolean click(ObservedRock rock, String option) {
+        // finding a point on the rock and moving the cursor there
+        return click(rock, option, 50, 150);
+    }
+
+    @Override
+    public boolean clickInPlace(ObservedRock rock, String option) {
+        if (!isOn(rock)) return click(rock, option);
+        return click(rock, option, 10, 30);
+    }
+
+    private boolean click(ObservedRock rock, String option, int timeMin, int timeMax) {
+        SimulatedRock simulatedRock = rocksByTile.get(rock.getPackedTile());
+        if (simulatedRock == null || !"Mine".equals(option)) return false;
+
+        clicks++;
+        sleep(timeMin, timeMax);
+        cursorTile = rock.getPackedTile();
+
+        // the player walks next to the rock unless already there, and starts mining once there (if it still has ore)
+        RSTile miningTile = getMiningTile(simulatedRock.position);
+        miningStartsAt = now + getWalkTime(miningTile);
+        playerPosition = miningTile;
+        miningTarget = simulatedRock.hasOre ? simulatedRock : null;
+        return true;
+    }
+
+    // Worlds ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public int getWorld() {
+        return world;
+    }
+
+    @Override
+    public boolean hopTo(int world) {
+        if (world != this.world && !crowds.containsKey(world)) return false;
+
+        sleep(HOP_TIME);
+        crowds.put(this.world, otherPlayers.size());
+        this.world = world;
+
+        // the new world's crowd and rocks have nothing to do with the old world's
+        otherPlayers.clear();
+        for (int i = 0; i < crowds.get(world); i++) {
+            otherPlayers.add(createOtherPlayer(playerPosition));
+        }
+        for (SimulatedRock rock : rocks) {
+            rock.hasOre = random.nextBoolean();
+            rock.respawnAt = rock.hasOre ? -1 : now + (long) (random.nextDouble() * rock.respawnTime);
+        }
+        for (Watch watch : watches.values()) {
+            watch.change.cancel(false);
+        }
+        watches.clear();
+        miningTarget = null;
+        cursorTile = -1;
+        return true;
+    }
+
+    // Walker ----------------------------------------------------------------------------------------------------------
+
+    @Override
+    public boolean walkTo(RSTile tile, BooleanSupplier stopCondition) {
+        sleep(PATHING_TIME_MIN, PATHING_TIME_MAX);
+        if (!walkTowards(tile, stopCondition)) sleep(WALK_SETTLE_TIME);
+        return true;
+    }
+
+    @Override
+    public boolean walkToBank(BooleanSupplier stopCondition) {
+        return walkTo(bankTile, stopCondition);
+    }
+
+    @Override
+    public boolean walkPath(RSTile[] path, BooleanSupplier stopCondition) {
+        int nearest = 0;
+        for (int i = 1; i < path.length; i++) {
+            if (path[i].distanceToDouble(playerPosition) < path[nearest].distanceToDouble(playerPosition)) nearest = i;
+        }
+
+        for (int i = nearest; i < path.length; i++) {
+            if (walkTowards(path[i], stopCondition)) return true;
+        }
+        sleep(WALK_SETTLE_TIME);
+        return true;
+    }
+
+    @Override
+    public boolean walkStraightTo(RSTile tile) {
+        walkTowards(tile, null);
+        return true;
+    }
+
+    // GameClock -------------------------------------------------------------------------------------------------------
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    @Override
+    public void sleep(long milliseconds) {
+        advanceTo(now + milliseconds);
+    }
+
+    @Override
+    public void sleep(int min, int max) {
+        sleep(random(min, max));
+    }
+
+    @Override
+    public int random(int min, int max) {
+        return min + random.nextInt(max - min + 1);
+    }
+
+    @Override
+    public boolean waitCondition(BooleanSupplier condition, long timeout) {
+        long deadline = now + timeout;
+        while (true) {
+            if (condition.getAsBoolean()) return true;
+            if (now >= deadline) return false;
+            advanceTo(Math.min(now + WAIT_POLL_INTERVAL, deadline));
+        }
+    }
+
+    @Override
+    public boolean await(Future<?> future, long timeout) {
+        long deadline = now + timeout;
+        while (!future.isDone() && now < deadline) {
+            long nextTick = (now / WorldSnapshot.TICK_LENGTH + 1) * WorldSnapshot.TICK_LENGTH;
+            advanceTo(Math.min(nextTick, deadline));
+        }
+        return future.isDone() && !future.isCancelled();
+    }
+
+    @Override
+    public long passTime(long milliseconds) {
+        advanceTo(now + milliseconds);
+        return 0;
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * The TickScheduler class estimates when the server's game ticks start, so actions can be timed against them instead
+ * of against the clock alone. The world only changes on a tick, so the moments changes are seen (e.g. a watched rock
+ * losing its ore) all fall at about the same offset into the 600 ms tick: the tick phase. Every change seen is added
+ * to a running circular mean of those offsets; once a few changes agree, the phase is known and times can be asked for
+ * as "tick N + offset".
+ *
+ * The mining logic uses it to start its pauses (dropping an ore, moving the cursor) early in a tick, so a pause does
+ * not run past the next tick's changes and delay the click that follows them, and to wait for a respawn by sleeping
+ * until the next tick's changes can be seen instead of polling.
+ *
+ * Until the phase is known, the ticks are counted from the epoch, as before.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+public class TickScheduler {
+
+    public static final long SEEN_MARGIN = 20;         // milliseconds after the phase a tick's changes are seen by
+
+    private static final int MIN_CHANGES = 3;          // changes to see before the phase is trusted
+    private static final double MIN_AGREEMENT = 0.5;   // the mean's length needed: 1 if every change had the same phase
+    private static final double PHASE_SMOOTHING = 0.1; // weight of a new change once MIN_CHANGES have been seen
+
+    private final GameClock clock;
+    private double phaseX = 0;  // the running mean of the changes' phases, as a vector on the unit circle
+    private double phaseY = 0;
+    private int changes = 0;
+    private volatile long phase = -1; // the estimated phase in milliseconds, or -1 while it is not known
+
+    public TickScheduler(GameClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Records the time a change of the world was seen.
+     */
+    public synchronized void observeChange(long time) {
+        double angle = 2 * Math.PI * Math.floorMod(time, (long) WorldSnapshot.TICK_LENGTH) / WorldSnapshot.TICK_LENGTH;
+        changes++;
+
+        // the first changes are averaged evenly, so the first one does not outweigh the next few
+        double weight = Math.max(PHASE_SMOOTHING, 1.0 / changes);
+        phaseX += (Math.cos(angle) - phaseX) * weight;
+        phaseY += (Math.sin(angle) - phaseY) * weight;
+
+        if (changes < MIN_CHANGES || Math.hypot(phaseX, phaseY) < MIN_AGREEMENT) {
+            phase = -1;
+            return;
+        }
+        double meanAngle = Math.atan2(phaseY, phaseX);
+        if (meanAngle < 0) meanAngle += 2 * Math.PI;
+        phase = Math.round(meanAngle / (2 * Math.PI) * WorldSnapshot.TICK_LENGTH) % WorldSnapshot.TICK_LENGTH;
+    }
+
+    /**
+     * Forgets the phase, e.g. after hopping to another world, whose ticks start at other times.
+     */
+    public synchronized void reset() {
+        phaseX = 0;
+        phaseY = 0;
+        changes = 0;
+        phase = -1;
+    }
+
+    /**
+     * @return True if the tick phase is known.
+     */
+    public boolean isCalibrated() {
+        return phase >= 0;
+    }
+
+    /**
+     * @return The phase in milliseconds (the offset into every 600 ms from the epoch at which ticks start), or 0 if
+     * it is not known.
+     */
+    public long getPhase() {
+        return Math.max(phase, 0);
+    }
+
+    /**
+     * @return The number of the tick the time falls in.
+     */
+    public long getTick(long time) {
+        return Math.floorDiv(time - getPhase(), (long) WorldSnapshot.TICK_LENGTH);
+    }
+
+    /**
+     * @return The time at an offset into a tick.
+     */
+    public long getTime(long tick, long offset) {
+        return tick * WorldSnapshot.TICK_LENGTH + getPhase() + offset;
+    }
+
+    /**
+     * @return The milliseconds from now until an offset into a tick, or 0 if that time has passed.
+     */
+    public long getDelayUntil(long tick, long offset) {
+        return Math.max(0, getTime(tick, offset) - clock.currentTimeMillis());
+    }
+
+    /**
+     * Sleeps until an offset into a tick; returns right away if that time has passed.
+     */
+    public void sleepUntil(long tick, long offset) {
+        long delay = getDelayUntil(tick, offset);
+        if (delay > 0) clock.sleep(delay);
+    }
+
+    /**
+     * @param defaultDelay: the delay to return while the phase is not known
+     *
+     * @return The milliseconds from now until the next tick's changes can be seen.
+     */
+    public long getDelayUntilNextTick(long defaultDelay) {
+        if (!isCalibrated()) return defaultDelay;
+        return getDelayUntil(getTick(clock.currentTimeMillis() - SEEN_MARGIN) + 1, SEEN_MARGIN);
+    }
+
+    /**
+     * @return True if an action of the given duration started now would be over before the next tick's changes can be
+     * seen, or if the phase is not known.
+     */
+    public boolean fitsInTick(long duration) {
+        return getDelayUntilNextTick(duration) >= duration;
+    }
+
+}
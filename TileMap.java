@@ -0,0 +1,116 @@
+/**
+ * The TileMap class maps packed tiles (see {@link Tiles#pack}) to values. It is an open-addressing hash table over a
+ * primitive int array, so looking a tile up neither boxes the key nor allocates.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.Arrays;
+
+public class TileMap<V> {
+
+    // -1 would be a tile at x = y = 32767 on plane 3, which is far outside the game world
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    public TileMap() {
+        this(16);
+    }
+
+    /**
+     * @param expectedSize: the number of tiles the map should hold without growing
+     * */
+    public TileMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 8) - 1) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int packedTile) {
+        return keys[indexOf(packedTile)] == packedTile;
+    }
+
+    /**
+     * @return The value of the tile, or null if the tile is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int packedTile) {
+        int index = indexOf(packedTile);
+        return keys[index] == packedTile ? (V) values[index] : null;
+    }
+
+    /**
+     * Maps a tile to a value, replacing its previous value.
+     */
+    public void put(int packedTile, V value) {
+        int index = indexOf(packedTile);
+        if (keys[index] != packedTile) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                index = indexOf(packedTile);
+            }
+            keys[index] = packedTile;
+            size++;
+        }
+        values[index] = value;
+    }
+
+    /**
+     * Removes every tile while keeping the table's capacity.
+     */
+    public void clear() {
+        if (size == 0) return;
+
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Finds the slot holding a tile, or the empty slot where it would be inserted.
+     */
+    private int indexOf(int packedTile) {
+        int mask = keys.length - 1;
+        int index = mix(packedTile) & mask;
+        while (keys[index] != packedTile && keys[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+
+            int index = indexOf(oldKeys[i]);
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    /**
+     * Spreads the bits of a packed tile, whose low bits only hold the y coordinate.
+     */
+    private static int mix(int packedTile) {
+        int hash = packedTile * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+}
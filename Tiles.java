@@ -0,0 +1,61 @@
+/**
+ * This class contains helper methods for packing tile coordinates into a single primitive value so that tiles can be
+ * stored and compared without allocating RSTile objects.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+public class Tiles {
+
+    // 15 bits are enough for every x/y coordinate in the game world; the plane takes the remaining 2 bits
+    private static final int COORDINATE_BITS = 15;
+    private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+
+    /**
+     * Packs a tile's coordinates into an int.
+     *
+     * @return The packed tile.
+     */
+    public static int pack(int x, int y, int plane) {
+        return (plane << (COORDINATE_BITS * 2)) | ((x & COORDINATE_MASK) << COORDINATE_BITS) | (y & COORDINATE_MASK);
+    }
+
+    public static int pack(RSTile tile) {
+        return pack(tile.getX(), tile.getY(), tile.getPlane());
+    }
+
+    public static int getX(int packedTile) {
+        return (packedTile >>> COORDINATE_BITS) & COORDINATE_MASK;
+    }
+
+    public static int getY(int packedTile) {
+        return packedTile & COORDINATE_MASK;
+    }
+
+    public static int getPlane(int packedTile) {
+        return packedTile >>> (COORDINATE_BITS * 2);
+    }
+
+    public static RSTile unpack(int packedTile) {
+        return new RSTile(getX(packedTile), getY(packedTile), getPlane(packedTile));
+    }
+
+    /**
+     * Calculates the squared euclidean distance between two packed tiles. Tiles on different planes are treated as
+     * being infinitely far apart.
+     *
+     * @return The squared distance, or Integer.MAX_VALUE if the tiles are on different planes.
+     */
+    public static int distanceSquared(int packedA, int packedB) {
+        if (getPlane(packedA) != getPlane(packedB)) return Integer.MAX_VALUE;
+
+        int dx = getX(packedA) - getX(packedB);
+        int dy = getY(packedA) - getY(packedB);
+        return dx * dx + dy * dy;
+    }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * The TRiBot-backed implementation of {@link BankView}.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.Banking;
+import scripts.CustomBanking;
+
+public class TribotBankView implements BankView {
+
+    @Override
+    public boolean isInBank() {
+        return CustomBanking.isInBank();
+    }
+
+    @Override
+    public boolean isBankScreenOpen() {
+        return Banking.isBankScreenOpen();
+    }
+
+    @Override
+    public boolean openBank() {
+        return Banking.openBank();
+    }
+
+    @Override
+    public int depositAll() {
+        return Banking.depositAll();
+    }
+
+    @Override
+    public boolean close() {
+        return Banking.close();
+    }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * The TRiBot-backed implementation of {@link GameClock}, using wall clock time.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api.General;
+import org.tribot.api.Timing;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+public class TribotClock implements GameClock {
+
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public void sleep(long milliseconds) {
+        General.sleep(milliseconds);
+    }
+
+    @Override
+    public void sleep(int min, int max) {
+        General.sleep(min, max);
+    }
+
+    @Override
+    public int random(int min, int max) {
+        return General.random(min, max);
+    }
+
+    @Override
+    public boolean waitCondition(BooleanSupplier condition, long timeout) {
+        return Timing.waitCondition(condition, timeout);
+    }
+
+    @Override
+    public boolean await(Future<?> future, long timeout) {
+        try {
+            future.get(timeout, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException | CancellationException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public long passTime(long milliseconds) {
+        return milliseconds;
+    }
+
+}
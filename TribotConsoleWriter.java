@@ -0,0 +1,42 @@
+/**
+ * A Writer onto TRiBot's script console: every complete line written is printed with General.println. It is the
+ * default output of {@link MiningLog}; the tools that run without a client send the log to the standard output
+ * instead.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api.General;
+
+import java.io.Writer;
+
+public class TribotConsoleWriter extends Writer {
+
+    private final StringBuilder pending = new StringBuilder(); // the line written so far, without its line break
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (buffer[i] == '\n') {
+                General.println(pending.toString());
+                pending.setLength(0);
+            } else {
+                pending.append(buffer[i]);
+            }
+        }
+    }
+
+    /**
+     * Does nothing: lines are printed as soon as they are complete, and a partial line waits for the rest of it.
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
@@ -0,0 +1,53 @@
+/**
+ * The TRiBot-backed implementation of {@link InventoryView}.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.Inventory;
+import org.tribot.api2007.types.RSItem;
+
+import java.util.concurrent.CompletableFuture;
+
+public class TribotInventoryView implements InventoryView {
+
+    @Override
+    public boolean isFull() {
+        return Inventory.isFull();
+    }
+
+    @Override
+    public int getItemCount() {
+        return Inventory.getAll().length;
+    }
+
+    @Override
+    public int getCount(String... names) {
+        return Inventory.getCount(names);
+    }
+
+    @Override
+    public int drop(String... names) {
+        return Inventory.drop(names);
+    }
+
+    @Override
+    public boolean dropOne(String... names) {
+        RSItem[] items = Inventory.find(names);
+        if (items.length == 0) return false;
+
+        RSItem first = items[0];
+        for (RSItem item : items) {
+            if (item.getIndex() < first.getIndex()) first = item;
+        }
+        return first.click("Drop");
+    }
+
+    @Override
+    public CompletableFuture<Integer> watchItemCount() {
+        return InventoryObserver.watch();
+    }
+
+}
@@ -0,0 +1,50 @@
+/**
+ * The TRiBot-backed implementation of {@link Mouse}.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api.Clicking;
+import org.tribot.api.DynamicClicking;
+import org.tribot.api2007.Game;
+import org.tribot.api2007.types.RSModel;
+
+import java.awt.Point;
+import java.awt.Polygon;
+
+public class TribotMouse implements Mouse {
+
+    @Override
+    public boolean hover(ObservedRock rock) {
+        return rock.getObject() != null && Clicking.hover(rock.getObject());
+    }
+
+    @Override
+    public boolean isOn(ObservedRock rock) {
+        if (rock.getObject() == null) return false;
+        RSModel model = rock.getObject().getModel();
+        if (model == null) return false;
+
+        // the model's outline is projected with the current camera, so it moves with the camera and the rock
+        Polygon area = model.getEnclosedArea();
+        Point cursor = org.tribot.api.input.Mouse.getPos();
+        return area != null && cursor != null && area.contains(cursor);
+    }
+
+    @Override
+    public boolean click(ObservedRock rock, String option) {
+        return rock.getObject() != null && DynamicClicking.clickRSObject(rock.getObject(), option);
+    }
+
+    @Override
+    public boolean clickInPlace(ObservedRock rock, String option) {
+        String uptext = Game.getUptext();
+        if (uptext == null || !uptext.startsWith(option) || !isOn(rock)) return click(rock, option);
+
+        org.tribot.api.input.Mouse.click(1);
+        return true;
+    }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * The TRiBot-backed implementation of {@link Walker}, using DaxWalker for long walks.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api.types.generic.Condition;
+import org.tribot.api2007.Walking;
+import org.tribot.api2007.types.RSTile;
+import scripts.dax_api.api_lib.DaxWalker;
+import scripts.dax_api.walker_engine.WalkingCondition;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+public class TribotWalker implements Walker {
+
+    // how often Walking.walkPath checks the stop condition
+    private static final long STOP_CONDITION_INTERVAL = 100;
+
+    @Override
+    public boolean walkTo(RSTile tile, BooleanSupplier stopCondition) {
+        return DaxWalker.walkTo(tile, toWalkingCondition(stopCondition));
+    }
+
+    @Override
+    public boolean walkToBank(BooleanSupplier stopCondition) {
+        return DaxWalker.walkToBank(toWalkingCondition(stopCondition));
+    }
+
+    @Override
+    public boolean walkPath(RSTile[] path, final BooleanSupplier stopCondition) {
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        boolean walked = Walking.walkPath(path, new Condition() {
+            @Override
+            public boolean active() {
+                stopped.set(stopCondition.getAsBoolean());
+                return stopped.get();
+            }
+        }, STOP_CONDITION_INTERVAL);
+        return walked || stopped.get();
+    }
+
+    @Override
+    public boolean walkStraightTo(RSTile tile) {
+        return Walking.walkPath(Walking.generateStraightPath(tile));
+    }
+
+    private static WalkingCondition toWalkingCondition(final BooleanSupplier stopCondition) {
+        return new WalkingCondition() {
+            @Override
+            public State action() {
+                return stopCondition.getAsBoolean() ? State.EXIT_OUT_WALKER_SUCCESS : State.CONTINUE_WALKER;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * The TRiBot-backed implementation of {@link WorldView}. Every call crosses into the game client.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.Objects;
+import org.tribot.api2007.Player;
+import org.tribot.api2007.Players;
+import org.tribot.api2007.Skills;
+import org.tribot.api2007.WorldHopper;
+import org.tribot.api2007.types.RSObject;
+import org.tribot.api2007.types.RSObjectDefinition;
+import org.tribot.api2007.types.RSPlayer;
+import org.tribot.api2007.types.RSTile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class TribotWorldView implements WorldView {
+
+    @Override
+    public RSTile getPlayerPosition() {
+        return Player.getPosition();
+    }
+
+    @Override
+    public int getPlayerAnimation() {
+        return Player.getAnimation();
+    }
+
+    @Override
+    public int getMiningLevel() {
+        return Skills.getActualLevel(Skills.SKILLS.MINING);
+    }
+
+    @Override
+    public ObservedRock[] findNearestRocks(int distance) {
+        RSObject[] rocks = Objects.findNearest(distance, "Rocks");
+
+        ObservedRock[] observedRocks = new ObservedRock[rocks.length];
+        for (int i = 0; i < rocks.length; i++) {
+            observedRocks[i] = new ObservedRock(rocks[i]);
+        }
+        return observedRocks;
+    }
+
+    @Override
+    public ObservedRock getRockAt(RSTile tile) {
+        return observeRockAt(tile);
+    }
+
+    @Override
+    public ObservedPlayer[] findOtherPlayers(int distance) {
+        RSPlayer localPlayer = Player.getRSPlayer();
+        RSTile position = Player.getPosition();
+
+        List<ObservedPlayer> players = new ArrayList<>();
+        for (RSPlayer player : Players.getAll()) {
+            if (player.equals(localPlayer)) continue;
+
+            RSTile playerPosition = player.getPosition();
+            if (playerPosition.distanceTo(position) > distance) continue;
+
+            players.add(new ObservedPlayer(playerPosition, player.getOrientation(), player.getAnimation()));
+        }
+        return players.toArray(new ObservedPlayer[0]);
+    }
+
+    @Override
+    public boolean isOnScreen(ObservedRock rock) {
+        return rock.getObject() != null && rock.getObject().isOnScreen();
+    }
+
+    @Override
+    public int getWorld() {
+        return WorldHopper.getWorld();
+    }
+
+    @Override
+    public boolean hopTo(int world) {
+        return WorldHopper.changeWorld(world);
+    }
+
+    @Override
+    public CompletableFuture<ObservedRock> watchRock(ObservedRock rock) {
+        return RockTileObserver.watch(rock);
+    }
+
+    @Override
+    public void unwatchRock(ObservedRock rock) {
+        RockTileObserver.unwatch(rock);
+    }
+
+    /**
+     * Gets the rock at a tile straight from the game client.
+     *
+     * @return The rock at the tile, or null if there is no rock there.
+     */
+    public static ObservedRock observeRockAt(RSTile tile) {
+        for (RSObject object : Objects.getAt(tile)) {
+            RSObjectDefinition definition = object.getDefinition();
+            if (definition != null && "Rocks".equals(definition.getName())) return new ObservedRock(object);
+        }
+        return null;
+    }
+
+}
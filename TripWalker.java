@@ -0,0 +1,114 @@
+/**
+ * The TripWalker class walks the trips between a mine and its bank. The first trip in each direction is walked with
+ * the walker's pathing service and recorded in a {@link RouteCache}; later trips walk the cached route locally. If the
+ * pathing service fails and no route is cached, the route of the opposite trip is walked backwards.
+ *
+ * Trips end as soon as the destination is in reach rather than at a fixed tile: a bank trip ends once the bank is
+ * reachable and starts opening it right away, so the character walks the last steps to the booth while the bank
+ * opens. Whether the bank is reachable is checked through the session's {@link MineIndex}, so the tiles already known
+ * to be in the bank are not asked about again on every poll.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSArea;
+import org.tribot.api2007.types.RSTile;
+
+import java.util.function.BooleanSupplier;
+
+public class TripWalker {
+
+    // a cached route is only used if the player is within this distance of one of its tiles
+    private static final int ROUTE_REACH = 15;
+
+    private final RouteCache routes;
+    private final String toBankKey;
+    private final String toMineKey;
+    private final MineIndex mineIndex;
+
+    public TripWalker(RouteCache routes, RSArea mine, MineIndex mineIndex) {
+        this.routes = routes;
+        this.mineIndex = mineIndex;
+        this.toBankKey = RouteCache.getToBankKey(mine);
+        this.toMineKey = RouteCache.getToMineKey(mine);
+    }
+
+    /**
+     * Walks to the bank and starts opening it.
+     *
+     * @return True if the bank was reached, false otherwise.
+     */
+    public boolean walkToBank() {
+        final GameContext context = GameContext.current();
+        final BankView bank = context.bank();
+
+        BooleanSupplier bankInReach = new BooleanSupplier() {
+            @Override
+            public boolean getAsBoolean() {
+                return mineIndex.isInBank(context.world().getPlayerPosition(), bank);
+            }
+        };
+        if (!walk(toBankKey, toMineKey, null, bankInReach)) return false;
+
+        if (!bank.isBankScreenOpen()) bank.openBank();
+        return true;
+    }
+
+    /**
+     * Walks towards a tile of the mine until the player is in the mine.
+     *
+     * @return True if the walk ended in the mine, false otherwise.
+     */
+    public boolean walkToMine(RSTile entranceTile, BooleanSupplier inMine) {
+        return walk(toMineKey, toBankKey, entranceTile, inMine);
+    }
+
+    /**
+     * @param destination: the tile to ask the pathing service for, or null for the nearest bank
+     * @param arrived: true once the walk has reached its destination
+     */
+    private boolean walk(String routeKey, String oppositeRouteKey, RSTile destination, BooleanSupplier arrived) {
+        GameContext context = GameContext.current();
+        Walker walker = context.walker();
+        RSTile position = context.world().getPlayerPosition();
+
+        RSTile[] route = routes.get(routeKey);
+        if (route != null && isInReach(route, position)) {
+            if (walker.walkPath(route, arrived)) return true;
+
+            MiningLog.log(LogLevel.WARN, "Cached route failed", routeKey);
+            routes.remove(routeKey);
+        }
+
+        RouteRecorder recorder = new RouteRecorder(context.world(), arrived);
+        boolean walked = destination == null ? walker.walkToBank(recorder) : walker.walkTo(destination, recorder);
+        if (walked) {
+            routes.put(routeKey, recorder.getRoute());
+            return true;
+        }
+
+        RSTile[] oppositeRoute = routes.get(oppositeRouteKey);
+        if (oppositeRoute == null || !isInReach(oppositeRoute, position)) return false;
+
+        MiningLog.log(LogLevel.WARN, "Pathing failed, walking the opposite route backwards", routeKey);
+        return walker.walkPath(reverse(oppositeRoute), arrived);
+    }
+
+    private static boolean isInReach(RSTile[] route, RSTile position) {
+        for (RSTile tile : route) {
+            if (tile.getPlane() == position.getPlane() && tile.distanceTo(position) <= ROUTE_REACH) return true;
+        }
+        return false;
+    }
+
+    private static RSTile[] reverse(RSTile[] route) {
+        RSTile[] reversed = new RSTile[route.length];
+        for (int i = 0; i < route.length; i++) {
+            reversed[i] = route[route.length - 1 - i];
+        }
+        return reversed;
+    }
+
+}
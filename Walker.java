@@ -0,0 +1,45 @@
+/**
+ * The Walker interface provides the walking used by the mining logic. Longer walks take a stop condition, which is
+ * checked repeatedly while walking: the walk ends successfully as soon as it is true. Besides ending a walk early,
+ * the stop condition is where callers observe the walk as it happens (see {@link RouteRecorder}).
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.util.function.BooleanSupplier;
+
+public interface Walker {
+
+    /**
+     * Walks to a tile, pathing around obstacles. The path may come from a remote pathing service.
+     *
+     * @return True if the tile was reached or the stop condition became true, false otherwise.
+     */
+    boolean walkTo(RSTile tile, BooleanSupplier stopCondition);
+
+    /**
+     * Walks to the nearest bank. The path may come from a remote pathing service.
+     *
+     * @return True if the bank was reached or the stop condition became true, false otherwise.
+     */
+    boolean walkToBank(BooleanSupplier stopCondition);
+
+    /**
+     * Walks along a known path, starting from the path tile nearest to the player, without asking for a path.
+     *
+     * @return True if the end of the path was reached or the stop condition became true, false otherwise.
+     */
+    boolean walkPath(RSTile[] path, BooleanSupplier stopCondition);
+
+    /**
+     * Walks in a straight line towards a nearby tile.
+     *
+     * @return True if the walk was successful, false otherwise.
+     */
+    boolean walkStraightTo(RSTile tile);
+
+}
@@ -0,0 +1,227 @@
+/**
+ * The WorldSelector class decides when a session should hop to another world, and to which. For the world the player
+ * is on, it keeps:
+ *
+ * - the ores mined, timed on a clock that only runs while the session is mining (not while it banks or drops), from
+ *   which the world's ore rate over the last RATE_WINDOW is measured, and
+ * - smoothed per-tick counts of the target rocks with ore and of the other players around, from the searches the
+ *   session makes anyway when it selects a rock.
+ *
+ * A hop is due once the player has mined on the world for MIN_DWELL and its ore rate is below the configured
+ * threshold, or sooner if no target rock has had ore for most of STARVED_DWELL (e.g. other players are camping them).
+ * The world left keeps its last ore rate; since crowds move, it drifts back to the threshold with a half-life of
+ * RATE_HALF_LIFE. Worlds not visited yet are assumed to be at the threshold, so a world known to be good is preferred
+ * to an unknown one and an unknown one to a world known to be bad.
+ *
+ * The worlds are kept ranked by that expected ore rate (fewest other players first on ties), and the ranking is only
+ * rebuilt when the stats change, so deciding where to hop is a lookup.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class WorldSelector {
+
+    private static final long MIN_DWELL = 180000;         // mining milliseconds on a world before its rate is trusted
+    private static final long RATE_WINDOW = 300000;       // mining milliseconds the ore rate is measured over
+    private static final long STARVED_DWELL = 60000;      // mining milliseconds before a starved world is left
+    private static final double STARVED_ROCKS = 0.25;     // rocks with ore per tick below which a world is starved
+    private static final double RATE_HALF_LIFE = 1800000; // milliseconds for a left world's rate to drift halfway back
+    private static final double STATS_SMOOTHING = 0.02;   // weight of a tick in the per-tick averages (~50 ticks)
+    private static final long RANK_INTERVAL = 60000;      // milliseconds between two rankings while not hopping
+    private static final int ORE_HISTORY = 1024;          // ores remembered, at least RATE_WINDOW's worth
+
+    private static class WorldStats {
+        private final int world;
+        private double oreRate = Double.NaN;  // ores/hour when the world was last left, or NaN if never visited
+        private long leftAt = 0;
+        private double availableRocks = 0;    // target rocks with ore per tick, averaged
+        private double otherPlayers = 0;      // other players around per tick, averaged
+        private double expectedRate = 0;      // as of the last ranking
+
+        private WorldStats(int world) {
+            this.world = world;
+        }
+    }
+
+    private final WorldStats[] worlds;
+    private final double threshold;       // ores/hour below which a world is left
+    private final WorldStats[] ranking;   // the worlds from the best to the worst, as of lastRankedAt
+    private long lastRankedAt = 0;
+
+    private WorldStats current = null;
+    private long enteredAt = 0;           // the mining time the current world was entered at
+    private long miningTime = 0;          // the mining time up to miningSince
+    private long miningSince = -1;        // when the session last started mining, or -1 if it is not mining
+    private final long[] oreTimes = new long[ORE_HISTORY]; // the mining times of the last ores on the current world
+    private int ores = 0;                 // the ores mined on the current world
+    private long lastObservedTick = -1;
+    private boolean observedSinceEntering = false;
+
+    /**
+     * @param worlds: the worlds the session may hop between
+     * @param threshold: the ores/hour below which the world the player is on is left
+     */
+    public WorldSelector(int[] worlds, double threshold) {
+        this.worlds = new WorldStats[worlds.length];
+        for (int i = 0; i < worlds.length; i++) {
+            this.worlds[i] = new WorldStats(worlds[i]);
+        }
+        this.threshold = threshold;
+        this.ranking = this.worlds.clone();
+    }
+
+    /**
+     * Sets the world the player is on, e.g. when the session starts or after a hop.
+     */
+    public void enter(int world, long now) {
+        current = getStats(world);
+        if (current == null) current = new WorldStats(world); // a world not to hop back to, e.g. the starting one
+        enteredAt = getMiningTime(now);
+        ores = 0;
+        observedSinceEntering = false;
+        rank(now);
+    }
+
+    /**
+     * Starts or stops the mining clock: only the time spent mining counts towards a world's ore rate.
+     */
+    public void setMining(boolean mining, long now) {
+        if (mining == (miningSince >= 0)) return;
+
+        if (mining) {
+            miningSince = now;
+        } else {
+            miningTime += now - miningSince;
+            miningSince = -1;
+        }
+    }
+
+    private long getMiningTime(long now) {
+        return miningSince < 0 ? miningTime : miningTime + now - miningSince;
+    }
+
+    public void addOres(int count, long now) {
+        long time = getMiningTime(now);
+        for (int i = 0; i < count; i++) {
+            oreTimes[ores % ORE_HISTORY] = time;
+            ores++;
+        }
+    }
+
+    /**
+     * Records what a search around the player found; only the first search of every tick is counted.
+     *
+     * @param availableRocks: the target rocks with ore found
+     * @param otherPlayers: the other players found
+     */
+    public void observe(long tick, int availableRocks, int otherPlayers, long now) {
+        if (current == null || tick == lastObservedTick) return;
+        lastObservedTick = tick;
+
+        // the averages of an earlier visit are out of date, so a visit's first search replaces them
+        double weight = observedSinceEntering ? STATS_SMOOTHING : 1;
+        observedSinceEntering = true;
+        current.availableRocks += (availableRocks - current.availableRocks) * weight;
+        current.otherPlayers += (otherPlayers - current.otherPlayers) * weight;
+        if (now - lastRankedAt >= RANK_INTERVAL) rank(now);
+    }
+
+    /**
+     * @return The ores/hour mined on the current world over the last RATE_WINDOW of mining time.
+     */
+    public double getOreRate(long now) {
+        long time = getMiningTime(now);
+        long window = Math.min(RATE_WINDOW, time - enteredAt);
+        if (window <= 0) return 0;
+
+        int count = 0;
+        int oldest = Math.max(0, ores - ORE_HISTORY);
+        for (int i = ores - 1; i >= oldest && oreTimes[i % ORE_HISTORY] > time - window; i--) {
+            count++;
+        }
+        return count * 3600000.0 / window;
+    }
+
+    /**
+     * @return True if the current world is worse than the threshold and there is another world to hop to.
+     */
+    public boolean shouldHop(long now) {
+        if (current == null || getNextWorld() < 0) return false;
+
+        long dwell = getMiningTime(now) - enteredAt;
+        if (dwell >= STARVED_DWELL && current.availableRocks < STARVED_ROCKS) return true;
+        return dwell >= MIN_DWELL && getOreRate(now) < threshold;
+    }
+
+    /**
+     * @return The best ranked world other than the current one, or -1 if there is none.
+     */
+    public int getNextWorld() {
+        for (WorldStats stats : ranking) {
+            if (stats != current) return stats.world;
+        }
+        return -1;
+    }
+
+    /**
+     * Records a hop from the current world. A world that could not be hopped to is ranked as if it had no ores.
+     */
+    public void onHop(int world, boolean hopped, long now) {
+        if (!hopped) {
+            WorldStats stats = getStats(world);
+            if (stats != null) {
+                stats.oreRate = 0;
+                stats.leftAt = now;
+            }
+            rank(now);
+            return;
+        }
+
+        if (current != null) {
+            current.oreRate = getOreRate(now);
+            current.leftAt = now;
+        }
+        enter(world, now);
+    }
+
+    /**
+     * @return The stats of a world to hop between, or null if the world is not one of them.
+     */
+    private WorldStats getStats(int world) {
+        for (WorldStats stats : worlds) {
+            if (stats.world == world) return stats;
+        }
+        return null;
+    }
+
+    /**
+     * Recomputes every world's expected ore rate and sorts the ranking by it.
+     */
+    private void rank(long now) {
+        for (WorldStats stats : worlds) {
+            stats.expectedRate = getExpectedRate(stats, now);
+        }
+        Arrays.sort(ranking, new Comparator<WorldStats>() {
+            @Override
+            public int compare(WorldStats a, WorldStats b) {
+                int byRate = Double.compare(b.expectedRate, a.expectedRate);
+                return byRate != 0 ? byRate : Double.compare(a.otherPlayers, b.otherPlayers);
+            }
+        });
+        lastRankedAt = now;
+    }
+
+    private double getExpectedRate(WorldStats stats, long now) {
+        if (stats == current) return getOreRate(now);
+        if (Double.isNaN(stats.oreRate)) return threshold;
+
+        double weight = Math.pow(0.5, (now - stats.leftAt) / RATE_HALF_LIFE);
+        return weight * stats.oreRate + (1 - weight) * threshold;
+    }
+
+}
@@ -0,0 +1,180 @@
+/**
+ * This class caches the rocks and other players around the player once per game tick (600 ms). All queries made during
+ * the same tick (finding the nearest rocks, checking a rock's tile, refreshing predetermined rocks, finding the other
+ * players) are answered from the same snapshot instead of going to the {@link WorldView} every time.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.util.Arrays;
+
+public class WorldSnapshot {
+
+    public static final int TICK_LENGTH = 600;
+
+    private static final ObservedRock[] NO_ROCKS = new ObservedRock[0];
+    private static final ObservedPlayer[] NO_PLAYERS = new ObservedPlayer[0];
+
+    private final WorldView world;
+    private final GameClock clock;
+    private final TickScheduler ticks;
+    private final RespawnTracker respawns;
+    private final ContentionTracker contention;
+    private final RockBoard board;
+    private final SessionRecorder recorder;
+
+    private volatile long snapshotTick = -1;  // the tick the snapshot was taken in; -1 if invalidated
+    private RSTile playerPosition = null;     // the player's position when the snapshot was taken
+    private int nearestRocksDistance = -1;    // the distance the nearest rocks were searched within
+    private ObservedRock[] nearestRocks = NO_ROCKS;
+    private int otherPlayersDistance = -1;    // the distance the other players were searched within
+    private ObservedPlayer[] otherPlayers = NO_PLAYERS;
+
+    // rocks looked up by tile during the current tick; a null value means there was no rock at the tile
+    private final TileMap<ObservedRock> rocksByTile = new TileMap<>(64);
+
+    public WorldSnapshot(WorldView world, GameClock clock, TickScheduler ticks, RespawnTracker respawns,
+                         ContentionTracker contention, RockBoard board, SessionRecorder recorder) {
+        this.world = world;
+        this.clock = clock;
+        this.ticks = ticks;
+        this.respawns = respawns;
+        this.contention = contention;
+        this.board = board;
+        this.recorder = recorder;
+    }
+
+    /**
+     * @return The number of the current game tick; once the {@link TickScheduler} knows the tick phase, a snapshot
+     * never spans the start of a server tick.
+     */
+    public long getCurrentTick() {
+        return ticks.getTick(clock.currentTimeMillis());
+    }
+
+    /**
+     * Forces the next query to refresh the snapshot, e.g. after a rock is known to have changed.
+     */
+    public void invalidate() {
+        snapshotTick = -1;
+    }
+
+    /**
+     * @return The player's position as of the current tick.
+     */
+    public RSTile getPlayerPosition() {
+        refreshIfStale();
+
+        if (playerPosition == null) {
+            playerPosition = world.getPlayerPosition();
+            recorder.recordPosition(clock.currentTimeMillis(), playerPosition);
+        }
+        return playerPosition;
+    }
+
+    /**
+     * Finds the rocks within a distance of the player, sorted from nearest to furthest.
+     *
+     * @return The rocks within the distance; an empty array if there are none.
+     */
+    public ObservedRock[] findNearestRocks(int distance) {
+        refreshIfStale();
+
+        if (distance > nearestRocksDistance) {
+            nearestRocks = world.findNearestRocks(distance);
+            long now = clock.currentTimeMillis();
+
+            for (ObservedRock rock : nearestRocks) {
+                rocksByTile.put(rock.getPackedTile(), rock);
+                respawns.observe(rock, now);
+                contention.observe(rock);
+                board.observe(rock);
+                recorder.recordRock(now, rock);
+            }
+            nearestRocksDistance = distance;
+            return nearestRocks;
+        }
+
+        if (distance == nearestRocksDistance) return nearestRocks;
+
+        // a smaller distance than the snapshot was taken with -> the rocks are sorted, so cut off the furthest ones
+        RSTile position = getPlayerPosition();
+        int count = 0;
+        while (count < nearestRocks.length && nearestRocks[count].getPosition().distanceTo(position) <= distance) {
+            count++;
+        }
+        return Arrays.copyOf(nearestRocks, count);
+    }
+
+    /**
+     * Finds the other players within a distance of the player and records them in the {@link ContentionTracker}.
+     *
+     * @return The other players within the distance, or within a larger distance searched earlier in the tick.
+     */
+    public ObservedPlayer[] findOtherPlayers(int distance) {
+        refreshIfStale();
+
+        if (distance > otherPlayersDistance) {
+            otherPlayers = world.findOtherPlayers(distance);
+            otherPlayersDistance = distance;
+            contention.observe(otherPlayers, clock.currentTimeMillis());
+        }
+        return otherPlayers;
+    }
+
+    /**
+     * Gets the rock at a tile as of the current tick. A tile within the distance the nearest rocks were searched in
+     * this tick is answered without asking the world, since every rock there has already been found.
+     *
+     * @return The rock at the tile, or null if there is no rock there.
+     */
+    public ObservedRock getRockAt(RSTile tile) {
+        refreshIfStale();
+
+        int packedTile = Tiles.pack(tile);
+        if (rocksByTile.containsKey(packedTile) || isCoveredByNearestRocks(packedTile)) {
+            return rocksByTile.get(packedTile);
+        }
+
+        ObservedRock rock = world.getRockAt(tile);
+        rocksByTile.put(packedTile, rock);
+        if (rock != null) {
+            long now = clock.currentTimeMillis();
+            respawns.observe(rock, now);
+            contention.observe(rock);
+            board.observe(rock);
+            recorder.recordRock(now, rock);
+        }
+
+        return rock;
+    }
+
+    private boolean isCoveredByNearestRocks(int packedTile) {
+        if (nearestRocksDistance <= 1) return false;
+
+        // one tile of margin, since the world may measure distances differently near the edge
+        int coveredDistance = nearestRocksDistance - 1;
+        return Tiles.distanceSquared(Tiles.pack(getPlayerPosition()), packedTile) <= coveredDistance * coveredDistance;
+    }
+
+    /**
+     * Drops the previous tick's snapshot if the game tick has changed since it was taken.
+     */
+    private void refreshIfStale() {
+        long currentTick = getCurrentTick();
+        if (snapshotTick == currentTick) return;
+
+        snapshotTick = currentTick;
+        playerPosition = null;
+        nearestRocksDistance = -1;
+        nearestRocks = NO_ROCKS;
+        otherPlayersDistance = -1;
+        otherPlayers = NO_PLAYERS;
+        rocksByTile.clear();
+    }
+
+}
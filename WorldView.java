@@ -0,0 +1,70 @@
+/**
+ * The WorldView interface provides what the mining logic needs to know about the game world: the player and the rocks
+ * around them. Implementations query the world directly; see {@link WorldSnapshot} for the per-tick cache on top.
+ *
+ * @author Ryan Tran
+ * */
+
+package scripts.mining;
+
+import org.tribot.api2007.types.RSTile;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface WorldView {
+
+    RSTile getPlayerPosition();
+
+    /**
+     * @return The player's current animation, or -1 if they are not animating.
+     */
+    int getPlayerAnimation();
+
+    /**
+     * @return The player's mining level, not counting temporary boosts.
+     */
+    int getMiningLevel();
+
+    /**
+     * @return The rocks within a distance of the player, sorted from nearest to furthest.
+     */
+    ObservedRock[] findNearestRocks(int distance);
+
+    /**
+     * @return The rock at a tile, or null if there is no rock there.
+     */
+    ObservedRock getRockAt(RSTile tile);
+
+    /**
+     * @return The other players within a distance of the player.
+     */
+    ObservedPlayer[] findOtherPlayers(int distance);
+
+    boolean isOnScreen(ObservedRock rock);
+
+    /**
+     * @return The world the player is logged in to.
+     */
+    int getWorld();
+
+    /**
+     * Hops to another world and waits until the player is logged in to it.
+     *
+     * @return True if the player is logged in to the world, false otherwise.
+     */
+    boolean hopTo(int world);
+
+    /**
+     * Starts watching a rock's tile.
+     *
+     * @return A future completed with the new observation of the tile (or null if the rock disappears) as soon as the
+     * object ID or colours at the tile differ from the given rock.
+     */
+    CompletableFuture<ObservedRock> watchRock(ObservedRock rock);
+
+    /**
+     * Stops watching a rock's tile and cancels its pending future.
+     */
+    void unwatchRock(ObservedRock rock);
+
+}